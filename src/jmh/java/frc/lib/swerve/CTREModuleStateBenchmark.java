@@ -0,0 +1,88 @@
+package frc.lib.swerve;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Optimizes one loop's worth of module states, as the drivetrain does every period. The original
+ * scope search loops once per turn the module has accumulated, so it is measured across a range of
+ * accumulated angles against the closed form version. Each call takes the next of a set of
+ * precomputed loops with a changing request, so the output's angle changes as it would while
+ * driving and the JIT can't fold a constant input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CTREModuleStateBenchmark {
+    private static final int moduleCount = 4;
+    /** Power of two so the next loop is a mask */
+    private static final int loopCount = 64;
+
+    /** Whole turns the current module angles have accumulated */
+    @Param({"0", "10", "1000", "100000"})
+    public int turns;
+
+    private final SwerveModuleState[][] desired = new SwerveModuleState[loopCount][moduleCount];
+    private final Rotation2d[][] current = new Rotation2d[loopCount][moduleCount];
+    private final SwerveModuleState[] out = new SwerveModuleState[moduleCount];
+    private int loop = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2024);
+        for (int j = 0; j < loopCount; j++) {
+            for (int i = 0; i < moduleCount; i++) {
+                desired[j][i] = new SwerveModuleState(random.nextDouble() * 4, Rotation2d.fromDegrees(random.nextDouble() * 360 - 180));
+                current[j][i] = Rotation2d.fromDegrees(turns * 360.0 + random.nextDouble() * 360 - 180);
+            }
+        }
+        for (int i = 0; i < moduleCount; i++) {
+            out[i] = new SwerveModuleState();
+        }
+    }
+
+    /** @return Index of the loop to run next */
+    private int nextLoop() {
+        loop = (loop + 1) & (loopCount - 1);
+        return loop;
+    }
+
+    @Benchmark
+    public void original(Blackhole blackhole) {
+        int j = nextLoop();
+        for (int i = 0; i < moduleCount; i++) {
+            blackhole.consume(CTREModuleState.optimize(desired[j][i], current[j][i]));
+        }
+    }
+
+    @Benchmark
+    public SwerveModuleState[] closedForm() {
+        int j = nextLoop();
+        for (int i = 0; i < moduleCount; i++) {
+            CTREModuleState.optimize(desired[j][i], current[j][i], out[i], false);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public SwerveModuleState[] closedFormCosineScaled() {
+        int j = nextLoop();
+        for (int i = 0; i < moduleCount; i++) {
+            CTREModuleState.optimize(desired[j][i], current[j][i], out[i], true);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,35 @@
+package frc.lib.swerve;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.robot.io.DriverControls;
+
+/** Reading the driver's sticks into chassis speeds, which the default drive command does every loop */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SwerveConfigBenchmark {
+    private DriverControls controls;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        controls = new DriverControls(0);
+    }
+
+    @Benchmark
+    public ChassisSpeeds toChassisSpeeds() {
+        // The drive argument is unused
+        return SwerveConfig.toChassisSpeeds(controls, null);
+    }
+}
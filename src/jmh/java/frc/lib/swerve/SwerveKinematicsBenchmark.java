@@ -0,0 +1,73 @@
+package frc.lib.swerve;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.SwerveConstants;
+
+/**
+ * The kinematics on the drivetrain's hot paths: WPILib's forward conversion, which Swerve replaced
+ * with a precomputed pseudo-inverse when it stopped allocating a snapshot per odometry update, the
+ * copy Drive takes of the latest snapshot every loop, the inverse, and a step of the setpoint
+ * generator Drive runs every loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SwerveKinematicsBenchmark {
+    /** Built from the same module positions as the drivetrain's own kinematics */
+    private final SwerveDriveKinematics kinematics = SwerveConstants.swerveKinematics;
+    private final Pose2d pose = new Pose2d(4, 5, Rotation2d.fromDegrees(30));
+    private final SwerveModuleState[] states = {
+        new SwerveModuleState(2, Rotation2d.fromDegrees(10)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(20)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(30)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(40))
+    };
+    private final ChassisSpeeds speeds = new ChassisSpeeds(2, 1, 1.5);
+    private final DrivetrainSnapshot latest = new DrivetrainSnapshot(0, 0, pose, states, speeds);
+    private final DrivetrainSnapshot copy = new DrivetrainSnapshot(states.length);
+    private final SwerveSetpointGenerator generator = new SwerveSetpointGenerator(SwerveConstants.modulePositions,
+        SwerveConstants.maxModuleVelocityMPS, SwerveConstants.setpointAccelerationMPSSq, SwerveConstants.setpointDecelerationMPSSq,
+        SwerveConstants.maxModuleSteerVelocityRPS);
+    /** Alternates the request so the generator always has somewhere to go */
+    private boolean forward;
+    private long version;
+
+    @Benchmark
+    public ChassisSpeeds toChassisSpeeds() {
+        return kinematics.toChassisSpeeds(states);
+    }
+
+    @Benchmark
+    public DrivetrainSnapshot copySnapshot() {
+        latest.version = ++version;
+        copy.copyFrom(latest);
+        return copy;
+    }
+
+    @Benchmark
+    public SwerveModuleState[] toSwerveModuleStates() {
+        return kinematics.toSwerveModuleStates(speeds);
+    }
+
+    @Benchmark
+    public double[] setpointGenerator() {
+        forward = !forward;
+        double direction = forward ? 1 : -1;
+        generator.generate(direction * speeds.vxMetersPerSecond, speeds.vyMetersPerSecond,
+            direction * speeds.omegaRadiansPerSecond, 0.02);
+        return generator.getModuleSpeeds();
+    }
+}
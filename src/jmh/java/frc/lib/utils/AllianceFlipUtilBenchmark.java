@@ -0,0 +1,72 @@
+package frc.lib.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Every apply variant on each alliance. Blue returns its input, so it measures the alliance lookup
+ * alone; red adds the flip and whatever it allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AllianceFlipUtilBenchmark {
+    @Param({"Blue1", "Red1"})
+    public AllianceStationID station;
+
+    private final double x = 2.5;
+    private final Translation2d translation = new Translation2d(2.5, 5.5);
+    private final Rotation2d rotation = Rotation2d.fromDegrees(30);
+    private final Pose2d pose = new Pose2d(translation, rotation);
+    private final Translation3d translation3d = new Translation3d(2.5, 5.5, 2);
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        DriverStationSim.setAllianceStationId(station);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+    }
+
+    @Benchmark
+    public double applyDouble() {
+        return AllianceFlipUtil.apply(x);
+    }
+
+    @Benchmark
+    public Translation2d applyTranslation2d() {
+        return AllianceFlipUtil.apply(translation);
+    }
+
+    @Benchmark
+    public Rotation2d applyRotation2d() {
+        return AllianceFlipUtil.apply(rotation);
+    }
+
+    @Benchmark
+    public Pose2d applyPose2d() {
+        return AllianceFlipUtil.apply(pose);
+    }
+
+    @Benchmark
+    public Translation3d applyTranslation3d() {
+        return AllianceFlipUtil.apply(translation3d);
+    }
+}
@@ -0,0 +1,43 @@
+package frc.lib.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.SwerveConstants;
+
+/** Publishing the robot and its modules to the field widget, including the NetworkTables writes */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FieldUtilBenchmark {
+    private FieldUtil field;
+    private final Pose2d pose = new Pose2d(4, 5, Rotation2d.fromDegrees(30));
+    private final SwerveModuleState[] states = {
+        new SwerveModuleState(2, Rotation2d.fromDegrees(10)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(20)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(30)),
+        new SwerveModuleState(2, Rotation2d.fromDegrees(40))
+    };
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        field = FieldUtil.getField();
+    }
+
+    @Benchmark
+    public void setSwerveRobotPose() {
+        field.setSwerveRobotPose(pose, states, SwerveConstants.modulePositions);
+    }
+}
@@ -0,0 +1,65 @@
+package frc.robot.commands;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.swerve.SwerveIO;
+import frc.robot.io.DriverControls;
+import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.shooter.ShotMap;
+import frc.robot.subsystems.shooter.ShotSolver;
+
+/**
+ * The target math in {@link AimAtSpeaker#execute}: solving the moving shot and working out the
+ * heading and center of rotation it drives with, through the command's own
+ * {@link AimAtSpeaker#updateTarget}. Every call sees a new snapshot, as it would after each odometry
+ * update, so the solver's cache never hits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AimAtSpeakerBenchmark {
+    private final DrivetrainSnapshot[] snapshots = new DrivetrainSnapshot[16];
+    private int next = 0;
+    private AimAtSpeaker command;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        SwerveModuleState[] states = {new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = new DrivetrainSnapshot(i, 0, new Pose2d(2 + i * 0.2, 4 + i * 0.1, Rotation2d.fromDegrees(i * 10)),
+                states, new ChassisSpeeds(1.5, 0.5 - i * 0.05, 0.2));
+        }
+        ShotSolver solver = new ShotSolver(new ShotMap(), () -> snapshots[next]);
+        command = new AimAtSpeaker(new Drive(new SwerveIO() {}), new DriverControls(0), false, solver);
+    }
+
+    private void nextSnapshot() {
+        next = (next + 1) % snapshots.length;
+    }
+
+    @Benchmark
+    public void target(Blackhole blackhole) {
+        nextSnapshot();
+        command.updateTarget(snapshots[next].pose);
+        blackhole.consume(command.targetAngle);
+        blackhole.consume(command.targetDx);
+        blackhole.consume(command.targetDy);
+    }
+}
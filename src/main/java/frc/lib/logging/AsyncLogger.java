@@ -0,0 +1,268 @@
+package frc.lib.logging;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.StructArrayLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.Constants.ModeConstants;
+
+/**
+ * Match logger writing a WPILOG file through {@link DataLogManager}, which picks a USB drive when
+ * one is plugged in. The main thread only copies a key, a timestamp and a primitive (or a reference
+ * to an immutable value) into a preallocated single-producer ring buffer; a background thread
+ * drains it into the log, which does the encoding and disk I/O.
+ *
+ * <p>Backpressure: the producer never waits. A record that arrives while the ring is full is
+ * dropped and counted, as is a record logged from any thread other than the one that created the
+ * logger. Both counters and the ring's high water mark are published so a dropping logger shows up
+ * on the dashboard instead of stalling the loop.
+ */
+public class AsyncLogger {
+    private static final String tableKey = "Logger";
+
+    private static AsyncLogger instance;
+
+    private final DataLog log;
+    /** Indexed by key; appended to on the main thread and read by the writer */
+    private final List<DataLogEntry> entries = new CopyOnWriteArrayList<>();
+    private final int capacity;
+    private final int[] keys;
+    private final long[] timestamps;
+    /** Doubles as raw bits, booleans as 0 or 1 */
+    private final long[] values;
+    private final Object[] objects;
+    /** Next slot to read, only advanced by the writer */
+    private final AtomicLong head = new AtomicLong();
+    /** Next slot to write, only advanced by the producer */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedFull = new AtomicLong();
+    private final AtomicLong droppedWrongThread = new AtomicLong();
+    private volatile long highWater = 0;
+    private final Thread producer;
+    private final Thread writer;
+
+    /** By name, since commands built on the fly would otherwise add an entry every time */
+    private final Map<String, Integer> commandKeys = new HashMap<>();
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable(tableKey);
+    private final DoublePublisher queueDepthPublisher = table.getDoubleTopic("QueueDepth").publish();
+    private final DoublePublisher highWaterPublisher = table.getDoubleTopic("HighWater").publish();
+    private final DoublePublisher droppedFullPublisher = table.getDoubleTopic("DroppedFull").publish();
+    private final DoublePublisher droppedThreadPublisher = table.getDoubleTopic("DroppedWrongThread").publish();
+
+    private AsyncLogger(int capacity, double drainPeriodSeconds, String replayLogPath) {
+        // Telemetry goes through this logger already, logging NT as well would write it twice
+        DataLogManager.logNetworkTables(false);
+        if (replayLogPath != null) {
+            File output = LogReplay.getOutputFile(replayLogPath);
+            DataLogManager.start(output.getParent(), output.getName());
+        }
+        log = DataLogManager.getLog();
+        this.capacity = capacity;
+        keys = new int[capacity];
+        timestamps = new long[capacity];
+        values = new long[capacity];
+        objects = new Object[capacity];
+        producer = Thread.currentThread();
+
+        long drainPeriodNanos = (long) (drainPeriodSeconds * 1e9);
+        writer = new Thread(() -> {
+            while (true) {
+                drain();
+                LockSupport.parkNanos(drainPeriodNanos);
+            }
+        }, "AsyncLogger");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Gets the logger, starting the log file and writer thread the first time. Call this first on
+     * the main thread; that thread becomes the only one allowed to log.
+     *
+     * @return The shared logger
+     */
+    public static AsyncLogger getInstance() {
+        if (instance == null) {
+            instance = new AsyncLogger(LoggingConstants.queueCapacity, LoggingConstants.drainPeriodSeconds, ModeConstants.replayLogPath);
+        }
+        return instance;
+    }
+
+    private int addEntry(DataLogEntry entry) {
+        entries.add(entry);
+        return entries.size() - 1;
+    }
+
+    /** @return Key to log with, see {@link #logDouble} */
+    public int addDouble(String name) {
+        return addEntry(new DoubleLogEntry(log, name));
+    }
+
+    /** @return Key to log with, see {@link #logBoolean} */
+    public int addBoolean(String name) {
+        return addEntry(new BooleanLogEntry(log, name));
+    }
+
+    /** @return Key to log with, see {@link #logInteger} */
+    public int addInteger(String name) {
+        return addEntry(new IntegerLogEntry(log, name));
+    }
+
+    /** @return Key to log with, see {@link #logObject} */
+    public <T> int addStruct(String name, Struct<T> struct) {
+        return addEntry(StructLogEntry.create(log, name, struct));
+    }
+
+    /** @return Key to log with, see {@link #logObject} with an array */
+    public <T> int addStructArray(String name, Struct<T> struct) {
+        return addEntry(StructArrayLogEntry.create(log, name, struct));
+    }
+
+    public void logDouble(int key, double value) {
+        push(key, Double.doubleToRawLongBits(value), null);
+    }
+
+    public void logBoolean(int key, boolean value) {
+        push(key, value ? 1 : 0, null);
+    }
+
+    public void logInteger(int key, long value) {
+        push(key, value, null);
+    }
+
+    /**
+     * Logs a struct or struct array. The value is serialized later on the writer thread, so it must
+     * not be changed afterwards.
+     */
+    public void logObject(int key, Object value) {
+        push(key, 0, value);
+    }
+
+    private void push(int key, long value, Object object) {
+        if (Thread.currentThread() != producer) {
+            droppedWrongThread.incrementAndGet();
+            return;
+        }
+        long t = tail.get();
+        long depth = t - head.get();
+        if (depth >= capacity) {
+            droppedFull.incrementAndGet();
+            return;
+        }
+        if (depth + 1 > highWater) {
+            highWater = depth + 1;
+        }
+        int slot = (int) (t % capacity);
+        keys[slot] = key;
+        timestamps[slot] = RobotController.getFPGATime();
+        values[slot] = value;
+        objects[slot] = object;
+        tail.lazySet(t + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        long h = head.get();
+        long t = tail.get();
+        while (h < t) {
+            int slot = (int) (h % capacity);
+            DataLogEntry entry = entries.get(keys[slot]);
+            long timestamp = timestamps[slot];
+            if (entry instanceof DoubleLogEntry doubleEntry) {
+                doubleEntry.append(Double.longBitsToDouble(values[slot]), timestamp);
+            } else if (entry instanceof BooleanLogEntry booleanEntry) {
+                booleanEntry.append(values[slot] != 0, timestamp);
+            } else if (entry instanceof IntegerLogEntry integerEntry) {
+                integerEntry.append(values[slot], timestamp);
+            } else if (objects[slot] == null) {
+                // Nothing to serialize, e.g. a pose that hasn't been set yet
+            } else if (entry instanceof StructLogEntry<?> structEntry) {
+                ((StructLogEntry<Object>) structEntry).append(objects[slot], timestamp);
+            } else if (entry instanceof StructArrayLogEntry<?> structArrayEntry) {
+                ((StructArrayLogEntry<Object>) structArrayEntry).append((Object[]) objects[slot], timestamp);
+            }
+            objects[slot] = null;
+            h++;
+            head.lazySet(h);
+        }
+    }
+
+    /**
+     * Logs every command starting and ending as a boolean per command name under Commands/
+     *
+     * @param scheduler
+     */
+    public void logCommands(CommandScheduler scheduler) {
+        scheduler.onCommandInitialize(command -> logBoolean(getCommandKey(command), true));
+        scheduler.onCommandFinish(command -> logBoolean(getCommandKey(command), false));
+        scheduler.onCommandInterrupt(command -> logBoolean(getCommandKey(command), false));
+    }
+
+    private int getCommandKey(Command command) {
+        String name = command.getName();
+        Integer key = commandKeys.get(name);
+        if (key == null) {
+            key = addBoolean("Commands/" + name);
+            commandKeys.put(name, key);
+        }
+        return key;
+    }
+
+    /**
+     * Waits for the writer to catch up and flushes the log to disk, e.g. before the program exits
+     *
+     * @param timeoutSeconds Longest to wait
+     */
+    public void awaitDrained(double timeoutSeconds) {
+        long deadline = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+        while (getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        log.flush();
+    }
+
+    /** @return Records not yet written */
+    public long getQueueDepth() {
+        return tail.get() - head.get();
+    }
+
+    /** @return Records dropped because the ring was full */
+    public long getDroppedFull() {
+        return droppedFull.get();
+    }
+
+    /** @return Records dropped because they were logged off the main thread */
+    public long getDroppedWrongThread() {
+        return droppedWrongThread.get();
+    }
+
+    /** Publishes the queue depth, high water mark and drop counters. Call at a telemetry rate. */
+    public void publishStats() {
+        queueDepthPublisher.set(getQueueDepth());
+        highWaterPublisher.set(highWater);
+        droppedFullPublisher.set(droppedFull.get());
+        droppedThreadPublisher.set(droppedWrongThread.get());
+    }
+}
@@ -0,0 +1,181 @@
+package frc.lib.logging;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Robot state and joystick values from the driver station, recorded every loop and put back into
+ * the simulated driver station when replaying so mode changes and driver input happen on the
+ * same loops they did in the match.
+ */
+public class DriverStationInputs implements LoggableInputs {
+    public static final String prefix = "DriverStation/";
+    /** An Xbox controller has six */
+    private static final int maxAxes = 6;
+
+    private static DriverStationInputs instance;
+
+    private final LogTable table = new LogTable(prefix);
+    private int[] ports = new int[0];
+    private String[][] axisKeys = new String[0][];
+    private String[] axisCountKeys = new String[0];
+    private String[] buttonKeys = new String[0];
+    private String[] buttonCountKeys = new String[0];
+    private String[] povKeys = new String[0];
+    private String[] povCountKeys = new String[0];
+
+    public boolean enabled;
+    public boolean autonomous;
+    public boolean test;
+    public boolean eStop;
+    public boolean fmsAttached;
+    public boolean dsAttached;
+    public long allianceStation;
+    public double matchTime;
+    public double[][] axes = new double[0][];
+    public long[] axisCounts = new long[0];
+    public long[] buttons = new long[0];
+    public long[] buttonCounts = new long[0];
+    public long[] povs = new long[0];
+    public long[] povCounts = new long[0];
+
+    private DriverStationInputs() {}
+
+    /**
+     * Gets the driver station inputs
+     *
+     * @return The shared inputs
+     */
+    public static DriverStationInputs getInstance() {
+        if (instance == null) {
+            instance = new DriverStationInputs();
+        }
+        return instance;
+    }
+
+    /**
+     * Sets which joysticks are recorded
+     *
+     * @param ports Driver station ports
+     */
+    public void setJoysticks(int... ports) {
+        this.ports = ports.clone();
+        axisKeys = new String[ports.length][maxAxes];
+        axisCountKeys = new String[ports.length];
+        buttonKeys = new String[ports.length];
+        buttonCountKeys = new String[ports.length];
+        povKeys = new String[ports.length];
+        povCountKeys = new String[ports.length];
+        axes = new double[ports.length][maxAxes];
+        axisCounts = new long[ports.length];
+        buttons = new long[ports.length];
+        buttonCounts = new long[ports.length];
+        povs = new long[ports.length];
+        povCounts = new long[ports.length];
+        for (int i = 0; i < ports.length; i++) {
+            String joystick = "Joystick" + ports[i] + "/";
+            for (int axis = 0; axis < maxAxes; axis++) {
+                axisKeys[i][axis] = joystick + "Axis" + axis;
+            }
+            axisCountKeys[i] = joystick + "AxisCount";
+            buttonKeys[i] = joystick + "Buttons";
+            buttonCountKeys[i] = joystick + "ButtonCount";
+            povKeys[i] = joystick + "POV";
+            povCountKeys[i] = joystick + "POVCount";
+        }
+    }
+
+    /** Reads the driver station and records it, or reads the log when replaying. Call every loop. */
+    public void periodic() {
+        enabled = DriverStation.isEnabled();
+        autonomous = DriverStation.isAutonomous();
+        test = DriverStation.isTest();
+        eStop = DriverStation.isEStopped();
+        fmsAttached = DriverStation.isFMSAttached();
+        dsAttached = DriverStation.isDSAttached();
+        allianceStation = DriverStation.getRawAllianceStation().ordinal();
+        matchTime = DriverStation.getMatchTime();
+        for (int i = 0; i < ports.length; i++) {
+            int port = ports[i];
+            axisCounts[i] = DriverStation.getStickAxisCount(port);
+            for (int axis = 0; axis < maxAxes; axis++) {
+                axes[i][axis] = axis < axisCounts[i] ? DriverStation.getStickAxis(port, axis) : 0;
+            }
+            buttons[i] = DriverStation.getStickButtons(port);
+            buttonCounts[i] = DriverStation.getStickButtonCount(port);
+            povCounts[i] = DriverStation.getStickPOVCount(port);
+            povs[i] = povCounts[i] > 0 ? DriverStation.getStickPOV(port, 0) : -1;
+        }
+        table.process(this);
+    }
+
+    @Override
+    public void toLog(LogTable table) {
+        table.put("Enabled", enabled);
+        table.put("Autonomous", autonomous);
+        table.put("Test", test);
+        table.put("EStop", eStop);
+        table.put("FMSAttached", fmsAttached);
+        table.put("DSAttached", dsAttached);
+        table.put("AllianceStation", allianceStation);
+        table.put("MatchTime", matchTime);
+        for (int i = 0; i < ports.length; i++) {
+            for (int axis = 0; axis < maxAxes; axis++) {
+                table.put(axisKeys[i][axis], axes[i][axis]);
+            }
+            table.put(axisCountKeys[i], axisCounts[i]);
+            table.put(buttonKeys[i], buttons[i]);
+            table.put(buttonCountKeys[i], buttonCounts[i]);
+            table.put(povKeys[i], povs[i]);
+            table.put(povCountKeys[i], povCounts[i]);
+        }
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+        enabled = table.get("Enabled", enabled);
+        autonomous = table.get("Autonomous", autonomous);
+        test = table.get("Test", test);
+        eStop = table.get("EStop", eStop);
+        fmsAttached = table.get("FMSAttached", fmsAttached);
+        dsAttached = table.get("DSAttached", dsAttached);
+        allianceStation = table.get("AllianceStation", allianceStation);
+        matchTime = table.get("MatchTime", matchTime);
+        for (int i = 0; i < ports.length; i++) {
+            for (int axis = 0; axis < maxAxes; axis++) {
+                axes[i][axis] = table.get(axisKeys[i][axis], axes[i][axis]);
+            }
+            axisCounts[i] = table.get(axisCountKeys[i], axisCounts[i]);
+            buttons[i] = table.get(buttonKeys[i], buttons[i]);
+            buttonCounts[i] = table.get(buttonCountKeys[i], buttonCounts[i]);
+            povs[i] = table.get(povKeys[i], povs[i]);
+            povCounts[i] = table.get(povCountKeys[i], povCounts[i]);
+        }
+    }
+
+    /** Puts the logged values for the next loop into the simulated driver station */
+    void applyToSimulation() {
+        fromLog(table);
+        DriverStationSim.setEnabled(enabled);
+        DriverStationSim.setAutonomous(autonomous);
+        DriverStationSim.setTest(test);
+        DriverStationSim.setEStop(eStop);
+        DriverStationSim.setFmsAttached(fmsAttached);
+        DriverStationSim.setDsAttached(dsAttached);
+        DriverStationSim.setAllianceStationId(AllianceStationID.values()[(int) allianceStation]);
+        DriverStationSim.setMatchTime(matchTime);
+        for (int i = 0; i < ports.length; i++) {
+            int port = ports[i];
+            DriverStationSim.setJoystickAxisCount(port, (int) axisCounts[i]);
+            for (int axis = 0; axis < maxAxes; axis++) {
+                DriverStationSim.setJoystickAxis(port, axis, axes[i][axis]);
+            }
+            DriverStationSim.setJoystickButtonCount(port, (int) buttonCounts[i]);
+            DriverStationSim.setJoystickButtons(port, (int) buttons[i]);
+            DriverStationSim.setJoystickPOVCount(port, (int) povCounts[i]);
+            DriverStationSim.setJoystickPOV(port, 0, (int) povs[i]);
+        }
+        DriverStationSim.notifyNewData();
+    }
+}
@@ -0,0 +1,217 @@
+package frc.lib.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.sim.SteppedSimulation;
+
+/**
+ * Feeds a recorded match log back through the robot code in simulation. The log is split into
+ * loops at each {@link #cycleKey} record; before each loop runs, that loop's inputs and driver
+ * station state are applied. Timing is paused and a {@link SteppedSimulation} steps it by exactly
+ * one loop period at a time, so loops run back to back as fast as the CPU allows and every run of
+ * the same log sees the same inputs at the same timestamps.
+ *
+ * <p>Only values logged through a {@link LogTable} under {@link #inputPrefix} or by
+ * {@link DriverStationInputs} are replayed. Everything else the code produces is logged again, and
+ * {@link #check} compares that against the original.
+ */
+public class LogReplay {
+    /** Logged once at the start of every loop by the robot */
+    public static final String cycleKey = "Loop/Cycle";
+    public static final String inputPrefix = "Inputs/";
+
+    private static LogReplay instance;
+
+    private final String path;
+    private final Map<String, Value> values = new HashMap<>();
+    private Value[] recordValues = new Value[1024];
+    private long[] recordBits = new long[1024];
+    /** Marks records that start a loop */
+    private boolean[] recordCycle = new boolean[1024];
+    private int recordCount = 0;
+    private int nextRecord = 0;
+    private long cycles = 0;
+
+    private LogReplay(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads a log and applies everything recorded before the first loop, e.g. inputs read while
+     * subsystems were constructed. Call before constructing subsystems.
+     *
+     * @param path WPILOG file to replay
+     * @return The replay
+     * @throws IOException If the log can't be read
+     */
+    public static LogReplay start(String path) throws IOException {
+        LogReplay replay = new LogReplay(path);
+        replay.load();
+        SimHooks.pauseTiming();
+        instance = replay;
+        replay.applyUntilCycle();
+        return replay;
+    }
+
+    /** @return The running replay, or null when not replaying */
+    public static LogReplay getInstance() {
+        return instance;
+    }
+
+    private void load() throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException("Not a WPILOG file: " + path);
+        }
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, String> types = new HashMap<>();
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                names.put(start.entry, start.name);
+                types.put(start.entry, start.type);
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+            String name = names.get(record.getEntry());
+            if (name == null) {
+                continue;
+            }
+            boolean cycle = name.equals(cycleKey);
+            if (!cycle && !name.startsWith(inputPrefix) && !name.startsWith(DriverStationInputs.prefix)) {
+                continue;
+            }
+            long bits = switch (types.get(record.getEntry())) {
+                case "double" -> Double.doubleToRawLongBits(record.getDouble());
+                case "boolean" -> record.getBoolean() ? 1 : 0;
+                case "int64" -> record.getInteger();
+                default -> Long.MIN_VALUE;
+            };
+            addRecord(getValue(name), bits, cycle);
+        }
+    }
+
+    private void addRecord(Value value, long bits, boolean cycle) {
+        if (recordCount == recordBits.length) {
+            int capacity = recordCount * 2;
+            recordValues = Arrays.copyOf(recordValues, capacity);
+            recordBits = Arrays.copyOf(recordBits, capacity);
+            recordCycle = Arrays.copyOf(recordCycle, capacity);
+        }
+        recordValues[recordCount] = value;
+        recordBits[recordCount] = bits;
+        recordCycle[recordCount] = cycle;
+        recordCount++;
+    }
+
+    /**
+     * @param key Full entry name
+     * @return Holder updated in place with the current loop's value
+     */
+    public Value getValue(String key) {
+        return values.computeIfAbsent(key, k -> new Value());
+    }
+
+    /** Applies records up to, not including, the next loop marker */
+    private void applyUntilCycle() {
+        while (nextRecord < recordCount && !recordCycle[nextRecord]) {
+            Value value = recordValues[nextRecord];
+            value.bits = recordBits[nextRecord];
+            value.present = true;
+            nextRecord++;
+        }
+    }
+
+    /**
+     * Applies the next loop's inputs and driver station state. Call once after robotInit and then
+     * between loops, while the robot loop is parked.
+     *
+     * @return False once the log has run out
+     */
+    public boolean advance() {
+        if (nextRecord >= recordCount) {
+            return false;
+        }
+        // Skip the marker itself, then everything up to the next one belongs to this loop
+        nextRecord++;
+        applyUntilCycle();
+        cycles++;
+        DriverStationInputs.getInstance().applyToSimulation();
+        return true;
+    }
+
+    /**
+     * @param path Log being replayed
+     * @return Where the replay's own log goes, next to the original so the two are easy to compare
+     */
+    public static File getOutputFile(String path) {
+        File original = new File(path).getAbsoluteFile();
+        return new File(original.getParentFile(), original.getName().replace(".wpilog", "") + "_replay.wpilog");
+    }
+
+    /**
+     * Compares everything the replay logged against the original, other than the replayed inputs
+     * and the given entries, and reports the result. Call once the replay's log is flushed.
+     *
+     * @param uncheckedPrefixes Entries that don't come from inputs, e.g. timings
+     * @return True if the replay reproduced the original
+     */
+    public boolean check(String[] uncheckedPrefixes) {
+        String[] ignored = Arrays.copyOf(uncheckedPrefixes, uncheckedPrefixes.length + 2);
+        ignored[uncheckedPrefixes.length] = inputPrefix;
+        ignored[uncheckedPrefixes.length + 1] = DriverStationInputs.prefix;
+        String replayPath = getOutputFile(path).getPath();
+        List<String> differences;
+        try {
+            differences = ReplayCheck.compare(path, replayPath, ignored);
+        } catch (IOException e) {
+            DriverStation.reportError("Replay check could not read the logs: " + e.getMessage(), false);
+            return false;
+        }
+        if (differences.isEmpty()) {
+            System.out.println("Replay check: " + replayPath + " matches " + path);
+            return true;
+        }
+        StringBuilder report = new StringBuilder("Replay check: " + differences.size() + " entries differ from " + path);
+        for (String difference : differences) {
+            report.append("\n  ").append(difference);
+        }
+        DriverStation.reportError(report.toString(), false);
+        return false;
+    }
+
+    /** @return Loops replayed so far */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /** Reports that the log ran out */
+    public void reportFinished() {
+        DriverStation.reportWarning("Replay of " + path + " finished after " + cycles + " loops", false);
+    }
+
+    /** Latest logged value of one entry, as raw bits */
+    public static class Value {
+        private long bits;
+        private boolean present = false;
+
+        public long getBits() {
+            return bits;
+        }
+
+        public boolean isPresent() {
+            return present;
+        }
+    }
+}
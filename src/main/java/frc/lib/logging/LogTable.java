@@ -0,0 +1,112 @@
+package frc.lib.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A named group of logged inputs, e.g. Inputs/Arm/. While recording, {@link #put} hands values that
+ * changed to the {@link AsyncLogger}; while replaying, {@link #get} returns the value the log had
+ * for the current loop. Field names should be constants so lookups only hash a cached string.
+ */
+public class LogTable {
+    private final String prefix;
+    private final Map<String, Field> fields = new HashMap<>();
+    private final AsyncLogger logger = AsyncLogger.getInstance();
+
+    /**
+     * @param prefix Prepended to every field name, ending in a slash
+     */
+    public LogTable(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Records the inputs, first overwriting them with the logged values when replaying so the
+     * replay's log holds what the code actually saw. Call right after the IO layer fills them in.
+     */
+    public void process(LoggableInputs inputs) {
+        if (LogReplay.getInstance() != null) {
+            inputs.fromLog(this);
+        }
+        inputs.toLog(this);
+    }
+
+    private Field getField(String name, int type) {
+        Field field = fields.get(name);
+        if (field == null) {
+            String key = prefix + name;
+            int loggerKey = switch (type) {
+                case Field.typeBoolean -> logger.addBoolean(key);
+                case Field.typeInteger -> logger.addInteger(key);
+                default -> logger.addDouble(key);
+            };
+            LogReplay replay = LogReplay.getInstance();
+            field = new Field(loggerKey, replay != null ? replay.getValue(key) : null);
+            fields.put(name, field);
+        }
+        return field;
+    }
+
+    public void put(String name, double value) {
+        Field field = getField(name, Field.typeDouble);
+        long bits = Double.doubleToRawLongBits(value);
+        if (field.changed(bits)) {
+            logger.logDouble(field.loggerKey, value);
+        }
+    }
+
+    public void put(String name, boolean value) {
+        Field field = getField(name, Field.typeBoolean);
+        if (field.changed(value ? 1 : 0)) {
+            logger.logBoolean(field.loggerKey, value);
+        }
+    }
+
+    public void put(String name, long value) {
+        Field field = getField(name, Field.typeInteger);
+        if (field.changed(value)) {
+            logger.logInteger(field.loggerKey, value);
+        }
+    }
+
+    public double get(String name, double defaultValue) {
+        LogReplay.Value value = getField(name, Field.typeDouble).replayValue;
+        return value != null && value.isPresent() ? Double.longBitsToDouble(value.getBits()) : defaultValue;
+    }
+
+    public boolean get(String name, boolean defaultValue) {
+        LogReplay.Value value = getField(name, Field.typeBoolean).replayValue;
+        return value != null && value.isPresent() ? value.getBits() != 0 : defaultValue;
+    }
+
+    public long get(String name, long defaultValue) {
+        LogReplay.Value value = getField(name, Field.typeInteger).replayValue;
+        return value != null && value.isPresent() ? value.getBits() : defaultValue;
+    }
+
+    private static class Field {
+        private static final int typeDouble = 0;
+        private static final int typeBoolean = 1;
+        private static final int typeInteger = 2;
+
+        private final int loggerKey;
+        private final LogReplay.Value replayValue;
+        private long lastBits;
+        private boolean logged = false;
+
+        private Field(int loggerKey, LogReplay.Value replayValue) {
+            this.loggerKey = loggerKey;
+            this.replayValue = replayValue;
+        }
+
+        /** Only values that changed are logged; replay holds each value until the next record */
+        private boolean changed(long bits) {
+            if (logged && bits == lastBits) {
+                return false;
+            }
+            logged = true;
+            lastBits = bits;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package frc.lib.logging;
+
+/**
+ * Everything a subsystem reads from hardware in one loop. Recorded to the log on the robot and
+ * read back from it in replay, so the subsystem's logic sees exactly what it saw in the match.
+ */
+public interface LoggableInputs {
+    /** Writes every field, see {@link LogTable#put} */
+    void toLog(LogTable table);
+
+    /** Reads every field back, see {@link LogTable#get} */
+    void fromLog(LogTable table);
+}
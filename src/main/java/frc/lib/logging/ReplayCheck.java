@@ -0,0 +1,85 @@
+package frc.lib.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+
+/**
+ * Checks that a replay reproduced the original run. Every entry outside the ignored prefixes must
+ * hold the same sequence of values in both logs. Timestamps aren't compared, since the replay runs
+ * on its own clock.
+ */
+public class ReplayCheck {
+    private ReplayCheck() {}
+
+    /**
+     * @param originalPath Log the replay was fed from
+     * @param replayPath Log the replay wrote
+     * @param ignoredPrefixes Entries that are replayed or don't come from inputs
+     * @return One line per entry that differs, empty if the logs match
+     * @throws IOException If either log can't be read
+     */
+    public static List<String> compare(String originalPath, String replayPath, String[] ignoredPrefixes) throws IOException {
+        Map<String, List<byte[]>> original = read(originalPath, ignoredPrefixes);
+        Map<String, List<byte[]>> replayed = read(replayPath, ignoredPrefixes);
+        TreeSet<String> names = new TreeSet<>(original.keySet());
+        names.addAll(replayed.keySet());
+        List<String> differences = new ArrayList<>();
+        for (String name : names) {
+            List<byte[]> expected = original.getOrDefault(name, List.of());
+            List<byte[]> actual = replayed.getOrDefault(name, List.of());
+            int count = Math.min(expected.size(), actual.size());
+            int index = 0;
+            while (index < count && Arrays.equals(expected.get(index), actual.get(index))) {
+                index++;
+            }
+            if (index < count) {
+                differences.add(String.format("%s: value %d of %d differs", name, index + 1, expected.size()));
+            } else if (expected.size() != actual.size()) {
+                differences.add(String.format("%s: %d values originally, %d replayed", name, expected.size(), actual.size()));
+            }
+        }
+        return differences;
+    }
+
+    /** @return The raw payload of every record, in order, by entry name */
+    private static Map<String, List<byte[]>> read(String path, String[] ignoredPrefixes) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException("Not a WPILOG file: " + path);
+        }
+        Map<Integer, List<byte[]>> byEntry = new HashMap<>();
+        Map<String, List<byte[]>> byName = new HashMap<>();
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                String name = record.getStartData().name;
+                if (!isIgnored(name, ignoredPrefixes)) {
+                    // An entry started twice keeps adding to the same sequence
+                    byEntry.put(record.getStartData().entry, byName.computeIfAbsent(name, n -> new ArrayList<>()));
+                }
+            } else if (!record.isControl()) {
+                List<byte[]> values = byEntry.get(record.getEntry());
+                if (values != null) {
+                    values.add(record.getRaw());
+                }
+            }
+        }
+        return byName;
+    }
+
+    private static boolean isIgnored(String name, String[] ignoredPrefixes) {
+        for (String prefix : ignoredPrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,313 @@
+package frc.lib.sim;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Runs every auto under every scenario, each in its own JVM since the HAL and NetworkTables are
+ * process wide, as many at once as there are cores. Children are started with this JVM's
+ * arguments, classpath and environment, so they find the same native libraries, and each runs one
+ * auto through {@link AutoSimRunner} and writes its result to a file. The results are then grouped
+ * per auto and ranked.
+ *
+ * <p>Ranking: autos that never followed a path come last, since finishing without driving measures
+ * nothing. Otherwise autos that finish in every run come first, then faster 90th percentile
+ * completion time, then lower mean RMS path error.
+ */
+public class AutoSimBatch {
+    private static final String autoKey = "AUTO_SIM";
+    private static final String resultKey = "AUTO_SIM_RESULT";
+
+    private final String mainClass;
+    private final Path outputDirectory;
+    private final double runTimeoutSeconds;
+
+    /**
+     * @param mainClass Class whose main starts the robot
+     * @param outputDirectory Where per run logs, the run table and the report go
+     * @param runTimeoutSeconds Longest a single run may take before it is killed and counted as failed
+     */
+    public AutoSimBatch(String mainClass, Path outputDirectory, double runTimeoutSeconds) {
+        this.mainClass = mainClass;
+        this.outputDirectory = outputDirectory;
+        this.runTimeoutSeconds = runTimeoutSeconds;
+    }
+
+    /**
+     * Runs the batch and writes the report, blocking until every run is done
+     *
+     * @param autos Chooser entries to run
+     * @param scenarios Conditions to run each of them under
+     * @param removeFromEnvironment Variables the children must not inherit, e.g. the one that
+     *     started this batch
+     * @return The report's path
+     */
+    public Path run(List<String> autos, List<AutoSimScenario> scenarios, String... removeFromEnvironment)
+            throws IOException, InterruptedException {
+        Path runDirectory = outputDirectory.resolve("runs");
+        Files.createDirectories(runDirectory);
+        List<String> command = getChildCommand();
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<AutoSimRunner.Result>> futures = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        int index = 0;
+        for (String auto : autos) {
+            for (AutoSimScenario scenario : scenarios) {
+                Path resultFile = runDirectory.resolve(index + ".csv");
+                Path logFile = runDirectory.resolve(index + ".log");
+                Files.deleteIfExists(resultFile);
+                ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile.toFile());
+                Map<String, String> environment = builder.environment();
+                for (String key : removeFromEnvironment) {
+                    environment.remove(key);
+                }
+                environment.putAll(scenario.toEnvironment());
+                environment.put(autoKey, auto);
+                environment.put(resultKey, resultFile.toAbsolutePath().toString());
+                futures.add(executor.submit(() -> runChild(builder, auto, scenario, resultFile)));
+                labels.add(index + ": " + auto + ", " + scenario);
+                index++;
+            }
+        }
+        System.out.println("AutoSim batch: " + futures.size() + " runs on " + parallelism + " cores");
+
+        long start = System.nanoTime();
+        List<AutoSimRunner.Result> results = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                AutoSimRunner.Result result = futures.get(i).get();
+                if (result != null) {
+                    results.add(result);
+                } else {
+                    failed.add(labels.get(i));
+                }
+            } catch (ExecutionException e) {
+                failed.add(labels.get(i) + " (" + e.getCause() + ")");
+            }
+        }
+        executor.shutdown();
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        writeRuns(results);
+        Path report = outputDirectory.resolve("report.txt");
+        Files.writeString(report, buildReport(autos, results, failed, wallSeconds));
+        System.out.println("AutoSim batch: report written to " + report.toAbsolutePath());
+        return report;
+    }
+
+    /** @return Command that starts another JVM like this one */
+    private List<String> getChildCommand() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+        return command;
+    }
+
+    /** @return The run's result, or null if it crashed, timed out or wrote nothing */
+    private AutoSimRunner.Result runChild(ProcessBuilder builder, String auto, AutoSimScenario scenario, Path resultFile)
+            throws IOException, InterruptedException {
+        Process process = builder.start();
+        if (!process.waitFor((long) (runTimeoutSeconds * 1000), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            return null;
+        }
+        if (!Files.exists(resultFile)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(resultFile);
+        return lines.isEmpty() ? null : AutoSimRunner.Result.fromCsv(auto, scenario, lines.get(0));
+    }
+
+    private void writeRuns(List<AutoSimRunner.Result> results) throws IOException {
+        StringBuilder csv = new StringBuilder("auto,alliance,offsetX,offsetY,offsetDegrees,batteryVolts,"
+            + "completionSeconds,finalX,finalY,finalRadians,endError,maxPathError,rmsPathError,pathSamples\n");
+        for (AutoSimRunner.Result result : results) {
+            AutoSimScenario scenario = result.scenario;
+            csv.append('"').append(result.name.replace("\"", "\"\"")).append("\",")
+                .append(scenario.alliance).append(',')
+                .append(scenario.startOffset.getX()).append(',')
+                .append(scenario.startOffset.getY()).append(',')
+                .append(scenario.startOffset.getRotation().getDegrees()).append(',')
+                .append(scenario.batteryVolts).append(',')
+                .append(result.toCsv()).append('\n');
+        }
+        Files.writeString(outputDirectory.resolve("runs.csv"), csv);
+    }
+
+    private static String buildReport(List<String> autos, List<AutoSimRunner.Result> results, List<String> failed, double wallSeconds) {
+        Map<String, List<AutoSimRunner.Result>> byAuto = new LinkedHashMap<>();
+        for (String auto : autos) {
+            byAuto.put(auto, new ArrayList<>());
+        }
+        for (AutoSimRunner.Result result : results) {
+            byAuto.get(result.name).add(result);
+        }
+        List<Summary> summaries = new ArrayList<>();
+        for (Map.Entry<String, List<AutoSimRunner.Result>> entry : byAuto.entrySet()) {
+            summaries.add(new Summary(entry.getKey(), entry.getValue()));
+        }
+        summaries.sort(Comparator.comparing((Summary summary) -> !summary.followedPath)
+            .thenComparingDouble(summary -> -summary.completionRate)
+            .thenComparingDouble(summary -> summary.p90CompletionSeconds)
+            .thenComparingDouble(summary -> summary.meanRmsPathError));
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("AutoSim batch: %d runs in %.1f s, %d failed%n%n", results.size() + failed.size(), wallSeconds, failed.size()));
+        report.append(String.format("%-4s %-32s %5s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n", "Rank", "Auto", "Runs", "Completed",
+            "Median s", "P90 s", "RMS err m", "Max err m", "End err m", "Max end m", "End dev m", "Max dev m"));
+        for (int i = 0; i < summaries.size(); i++) {
+            Summary summary = summaries.get(i);
+            report.append(String.format("%-4d %-32s %5d %8.0f%% %8.2f %8.2f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%s%n", i + 1, summary.name,
+                summary.runs, summary.completionRate * 100, summary.medianCompletionSeconds, summary.p90CompletionSeconds,
+                summary.meanRmsPathError, summary.maxPathError, summary.meanEndError, summary.maxEndError,
+                summary.meanEndDeviation, summary.maxEndDeviation, summary.followedPath ? "" : "  no path followed"));
+        }
+        report.append("\nCompletion is from enabling until the auto command finished. Path error is the estimated pose's\n")
+            .append("distance from PathPlanner's target. End error is the distance from where the robot really\n")
+            .append("ended to the end of the auto's last path, so it includes the start offset and odometry drift.\n")
+            .append("End deviation is the distance from each run's final position to the mean final position of\n")
+            .append("that auto on the same alliance.\n");
+        appendEndErrorByOffset(report, summaries, results);
+        if (!failed.isEmpty()) {
+            report.append("\nFailed runs, see runs/<index>.log:\n");
+            for (String run : failed) {
+                report.append("  ").append(run).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    /** Mean end error of each auto from each start offset, over alliances and battery voltages */
+    private static void appendEndErrorByOffset(StringBuilder report, List<Summary> summaries, List<AutoSimRunner.Result> results) {
+        List<String> offsets = new ArrayList<>();
+        for (AutoSimRunner.Result result : results) {
+            String offset = result.scenario.getStartOffsetLabel();
+            if (!offsets.contains(offset)) {
+                offsets.add(offset);
+            }
+        }
+        report.append("\nMean end error in m by start offset (x m, y m, heading deg):\n");
+        report.append(String.format("%-32s", "Auto"));
+        for (String offset : offsets) {
+            report.append(String.format(" %18s", offset));
+        }
+        report.append('\n');
+        for (Summary summary : summaries) {
+            report.append(String.format("%-32s", summary.name));
+            for (String offset : offsets) {
+                double sum = 0;
+                int count = 0;
+                for (AutoSimRunner.Result result : results) {
+                    if (result.name.equals(summary.name) && result.scenario.getStartOffsetLabel().equals(offset)
+                            && !Double.isNaN(result.endErrorMeters)) {
+                        sum += result.endErrorMeters;
+                        count++;
+                    }
+                }
+                report.append(String.format(" %18.3f", count == 0 ? Double.NaN : sum / count));
+            }
+            report.append('\n');
+        }
+    }
+
+    /** Distributions for one auto over every scenario it ran under */
+    private static class Summary {
+        private final String name;
+        private final int runs;
+        /** False if no run ever had a PathPlanner target, e.g. the auto failed to build */
+        private final boolean followedPath;
+        private final double completionRate;
+        private final double medianCompletionSeconds;
+        private final double p90CompletionSeconds;
+        private final double meanRmsPathError;
+        private final double maxPathError;
+        /** NaN if the auto has no paths */
+        private final double meanEndError;
+        private final double maxEndError;
+        private final double meanEndDeviation;
+        private final double maxEndDeviation;
+
+        private Summary(String name, List<AutoSimRunner.Result> results) {
+            this.name = name;
+            runs = results.size();
+            List<Double> completionTimes = new ArrayList<>();
+            double rmsSum = 0;
+            double maxError = 0;
+            double endErrorSum = 0;
+            double maxEndErrorSeen = 0;
+            int endErrorCount = 0;
+            Map<Alliance, Translation2d> endSums = new LinkedHashMap<>();
+            Map<Alliance, Integer> endCounts = new LinkedHashMap<>();
+            boolean anyPath = false;
+            for (AutoSimRunner.Result result : results) {
+                anyPath |= result.pathSamples > 0;
+                if (result.isCompleted()) {
+                    completionTimes.add(result.completionSeconds);
+                }
+                rmsSum += result.getRmsPathErrorMeters();
+                maxError = Math.max(maxError, result.maxPathErrorMeters);
+                if (!Double.isNaN(result.endErrorMeters)) {
+                    endErrorSum += result.endErrorMeters;
+                    maxEndErrorSeen = Math.max(maxEndErrorSeen, result.endErrorMeters);
+                    endErrorCount++;
+                }
+                endSums.merge(result.scenario.alliance, result.finalPose.getTranslation(), Translation2d::plus);
+                endCounts.merge(result.scenario.alliance, 1, Integer::sum);
+            }
+            followedPath = anyPath;
+            completionTimes.sort(null);
+            completionRate = runs == 0 ? 0 : (double) completionTimes.size() / runs;
+            // Runs that never finish count as taking forever
+            medianCompletionSeconds = percentile(completionTimes, runs, 0.5);
+            p90CompletionSeconds = percentile(completionTimes, runs, 0.9);
+            meanRmsPathError = runs == 0 ? 0 : rmsSum / runs;
+            maxPathError = maxError;
+            meanEndError = endErrorCount == 0 ? Double.NaN : endErrorSum / endErrorCount;
+            maxEndError = endErrorCount == 0 ? Double.NaN : maxEndErrorSeen;
+
+            double deviationSum = 0;
+            double maxDeviation = 0;
+            for (AutoSimRunner.Result result : results) {
+                Alliance alliance = result.scenario.alliance;
+                Translation2d mean = endSums.get(alliance).div(endCounts.get(alliance));
+                double deviation = result.finalPose.getTranslation().getDistance(mean);
+                deviationSum += deviation;
+                maxDeviation = Math.max(maxDeviation, deviation);
+            }
+            meanEndDeviation = runs == 0 ? 0 : deviationSum / runs;
+            maxEndDeviation = maxDeviation;
+        }
+
+        /** @param sorted Completion times of the runs that finished, ascending */
+        private static double percentile(List<Double> sorted, int runs, double fraction) {
+            int index = (int) Math.ceil(fraction * runs) - 1;
+            if (runs == 0 || index >= sorted.size()) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return sorted.get(Math.max(index, 0));
+        }
+    }
+}
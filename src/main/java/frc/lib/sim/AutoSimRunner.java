@@ -0,0 +1,332 @@
+package frc.lib.sim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.util.GeometryUtil;
+import com.pathplanner.lib.util.PathPlannerLogging;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Runs autonomous routines headless and faster than real time. Timing is paused and a
+ * {@link SteppedSimulation} steps it one loop period at a time, so loops run back to back as fast
+ * as the CPU allows. Each
+ * auto is selected on the dashboard chooser exactly as a driver would, given a disabled period so
+ * the preloader can build it, then run enabled for the length of the autonomous period.
+ *
+ * <p>For each auto the runner reports where the robot really ended and how far that is from the end
+ * of the auto's last path, how long the auto command took to finish, how far the estimated pose was
+ * from PathPlanner's target pose while following a path, and when every command started and ended.
+ * The scenario's start offset is where the robot really starts compared to the auto's starting pose;
+ * the estimate isn't told, as when a driver places the robot a little off its mark. Runs happen under one {@link AutoSimScenario}; {@link AutoSimBatch} covers many.
+ */
+public class AutoSimRunner {
+    private enum Phase {
+        DISABLED,
+        AUTO
+    }
+
+    private final List<String> autos;
+    private final AutoSimScenario scenario;
+    private final Supplier<Pose2d> pose;
+    private final Supplier<Pose2d> truePose;
+    private final Consumer<Pose2d> resetPose;
+    private final double periodSeconds;
+    private final int disabledLoops;
+    private final int autoLoops;
+    private final StringPublisher selectedPublisher;
+    private final Path resultPath;
+    private final List<Result> results = new ArrayList<>();
+
+    private int autoIndex = 0;
+    private Phase phase = Phase.DISABLED;
+    private int loops = 0;
+    private double autoStartTime;
+    private Result current;
+    /** First command started once enabled, i.e. the one autonomousInit scheduled */
+    private Command autoCommand;
+    private Pose2d targetPose;
+    /** Where the current auto's last path ends, null if it has none */
+    private Pose2d pathEnd;
+
+    /**
+     * @param chooserKey SmartDashboard key of the auto chooser
+     * @param autos Chooser entries to run, in order
+     * @param scenario Alliance, placement error and battery voltage to run under
+     * @param pose Current estimated pose
+     * @param truePose Where the simulated robot really is
+     * @param resetPose Resets the estimated pose before each auto
+     * @param setPlacementError Sets where the robot really is compared to every estimate reset
+     * @param periodSeconds Main loop period
+     * @param disabledSeconds Time disabled before each auto
+     * @param autoSeconds Time each auto runs for
+     * @param resultPath File to append a {@link Result#toCsv} line to per auto, or null
+     */
+    public AutoSimRunner(String chooserKey, List<String> autos, AutoSimScenario scenario, Supplier<Pose2d> pose,
+            Supplier<Pose2d> truePose, Consumer<Pose2d> resetPose, Consumer<Transform2d> setPlacementError,
+            double periodSeconds, double disabledSeconds, double autoSeconds, Path resultPath) {
+        this.autos = autos;
+        this.scenario = scenario;
+        this.resultPath = resultPath;
+        this.pose = pose;
+        this.truePose = truePose;
+        this.resetPose = resetPose;
+        // Every reset, ours and the auto's own, puts the robot this far off the estimate
+        setPlacementError.accept(scenario.startOffset);
+        this.periodSeconds = periodSeconds;
+        disabledLoops = (int) Math.ceil(disabledSeconds / periodSeconds);
+        autoLoops = (int) Math.ceil(autoSeconds / periodSeconds);
+        selectedPublisher = NetworkTableInstance.getDefault().getTable("SmartDashboard").getSubTable(chooserKey)
+            .getStringTopic("selected").publish();
+        PathPlannerLogging.setLogTargetPoseCallback(target -> targetPose = target);
+    }
+
+    /**
+     * Pauses timing, sets the battery's unloaded voltage and attaches a simulated driver station,
+     * disabled on the scenario's alliance. Call at the end of robotInit.
+     *
+     * @param scheduler Scheduler whose commands go into the timeline
+     * @return False if there is nothing to run
+     */
+    public boolean start(CommandScheduler scheduler) {
+        if (autos.isEmpty()) {
+            System.out.println("AutoSim: no autos to run");
+            return false;
+        }
+        scheduler.onCommandInitialize(command -> record(command, "start"));
+        scheduler.onCommandFinish(command -> record(command, "end"));
+        scheduler.onCommandInterrupt(command -> record(command, "interrupted"));
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAllianceStationId(scenario.getStation());
+        PhysicsSim.getInstance().setNominalVoltage(scenario.batteryVolts);
+        setDriverStation(false);
+        beginAuto();
+        return true;
+    }
+
+    private void beginAuto() {
+        String name = autos.get(autoIndex);
+        current = new Result(name, scenario);
+        current.wallStartNanos = System.nanoTime();
+        autoCommand = null;
+        Pose2d start = getStartingPose(name);
+        pathEnd = getPathEnd(name);
+        if (scenario.alliance == Alliance.Red) {
+            start = GeometryUtil.flipFieldPose(start);
+            pathEnd = pathEnd != null ? GeometryUtil.flipFieldPose(pathEnd) : null;
+        }
+        resetPose.accept(start);
+        phase = Phase.DISABLED;
+        loops = 0;
+    }
+
+    /** @return Where a PathPlanner auto starts on the blue side, or the origin for anything else */
+    private static Pose2d getStartingPose(String name) {
+        try {
+            Pose2d start = PathPlannerAuto.getStaringPoseFromAutoFile(name);
+            return start != null ? start : new Pose2d();
+        } catch (RuntimeException e) {
+            return new Pose2d();
+        }
+    }
+
+    /** @return Where a PathPlanner auto's last path ends on the blue side, or null if it has no paths */
+    private static Pose2d getPathEnd(String name) {
+        try {
+            List<PathPlannerPath> paths = PathPlannerAuto.getPathGroupFromAutoFile(name);
+            if (paths.isEmpty()) {
+                return null;
+            }
+            PathPlannerPath last = paths.get(paths.size() - 1);
+            return new Pose2d(last.getPoint(last.numPoints() - 1).position, last.getGoalEndState().getRotation());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void setDriverStation(boolean autonomous) {
+        DriverStationSim.setAutonomous(autonomous);
+        DriverStationSim.setEnabled(autonomous);
+        DriverStationSim.notifyNewData();
+    }
+
+    /**
+     * Samples the current auto and moves between phases. Call between loops, while the robot loop
+     * is parked.
+     *
+     * @return False once every auto has run
+     */
+    public boolean step() {
+        loops++;
+        if (phase == Phase.DISABLED) {
+            if (loops == 1) {
+                // The chooser only exists once the driver station has connected, which is during the
+                // first loop, and picks the selection up when the dashboard updates after this
+                selectedPublisher.set(autos.get(autoIndex));
+            } else if (loops >= disabledLoops) {
+                phase = Phase.AUTO;
+                loops = 0;
+                targetPose = null;
+                autoStartTime = Timer.getFPGATimestamp() + periodSeconds;
+                setDriverStation(true);
+            }
+        } else {
+            sample();
+            if (loops >= autoLoops) {
+                setDriverStation(false);
+                current.finalPose = truePose.get();
+                if (pathEnd != null) {
+                    current.endErrorMeters = current.finalPose.getTranslation().getDistance(pathEnd.getTranslation());
+                }
+                current.wallSeconds = (System.nanoTime() - current.wallStartNanos) / 1e9;
+                results.add(current);
+                current.print();
+                writeResult(current);
+                autoIndex++;
+                if (autoIndex >= autos.size()) {
+                    current = null;
+                    return false;
+                }
+                beginAuto();
+            }
+        }
+        return true;
+    }
+
+    private void sample() {
+        // The callback only fires while a path is being followed
+        if (targetPose != null) {
+            current.addPathError(pose.get().getTranslation().getDistance(targetPose.getTranslation()));
+            targetPose = null;
+        }
+    }
+
+    private void record(Command command, String event) {
+        if (current != null && phase == Phase.AUTO) {
+            double time = Timer.getFPGATimestamp() - autoStartTime;
+            current.timeline.add(String.format("%7.3f s  %-11s %s", time, event, command.getName()));
+            if (autoCommand == null && event.equals("start")) {
+                autoCommand = command;
+            } else if (command == autoCommand && event.equals("end")) {
+                current.completionSeconds = time;
+            }
+        }
+    }
+
+    private void writeResult(Result result) {
+        if (resultPath == null) {
+            return;
+        }
+        try {
+            Files.writeString(resultPath, result.toCsv() + System.lineSeparator(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            DriverStation.reportError("AutoSim could not write " + resultPath + ": " + e.getMessage(), false);
+        }
+    }
+
+    /** @return Results of every auto that has finished */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public static class Result {
+        public final String name;
+        public final AutoSimScenario scenario;
+        /** From enabling until the auto command finished on its own, NaN if it never did */
+        public double completionSeconds = Double.NaN;
+        /** Where the robot really ended, not the estimate */
+        public Pose2d finalPose;
+        /** From the final pose to the end of the auto's last path, NaN if it has no paths */
+        public double endErrorMeters = Double.NaN;
+        public double maxPathErrorMeters = 0;
+        public int pathSamples = 0;
+        private double sumSquaredPathError = 0;
+        public final List<String> timeline = new ArrayList<>();
+        public double wallSeconds;
+        private long wallStartNanos;
+
+        private Result(String name, AutoSimScenario scenario) {
+            this.name = name;
+            this.scenario = scenario;
+        }
+
+        public boolean isCompleted() {
+            return !Double.isNaN(completionSeconds);
+        }
+
+        private void addPathError(double meters) {
+            maxPathErrorMeters = Math.max(maxPathErrorMeters, meters);
+            sumSquaredPathError += meters * meters;
+            pathSamples++;
+        }
+
+        public double getRmsPathErrorMeters() {
+            return pathSamples == 0 ? 0 : Math.sqrt(sumSquaredPathError / pathSamples);
+        }
+
+        private void print() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("AutoSim: %s, %s (%.2f s wall)%n", name, scenario, wallSeconds));
+            report.append(isCompleted() ? String.format("  Completed in %.2f s%n", completionSeconds) : "  Did not complete\n");
+            report.append(String.format("  Final pose: x %.3f m, y %.3f m, heading %.1f deg, %.3f m from the path end%n",
+                finalPose.getX(), finalPose.getY(), finalPose.getRotation().getDegrees(), endErrorMeters));
+            if (pathSamples == 0) {
+                report.append("  Path error: no path followed\n");
+            } else {
+                report.append(String.format("  Path error: max %.3f m, RMS %.3f m over %d loops%n",
+                    maxPathErrorMeters, getRmsPathErrorMeters(), pathSamples));
+            }
+            report.append("  Commands:\n");
+            for (String event : timeline) {
+                report.append("    ").append(event).append('\n');
+            }
+            System.out.print(report);
+        }
+
+        /** @return Completion time, final pose, end error and path error, the format {@link #fromCsv} reads */
+        public String toCsv() {
+            return String.format("%s,%s,%s,%s,%s,%s,%s,%d", completionSeconds, finalPose.getX(), finalPose.getY(),
+                finalPose.getRotation().getRadians(), endErrorMeters, maxPathErrorMeters, getRmsPathErrorMeters(), pathSamples);
+        }
+
+        /**
+         * @param name Auto the line came from
+         * @param scenario Scenario the line came from
+         * @param line Written by {@link #toCsv}
+         */
+        public static Result fromCsv(String name, AutoSimScenario scenario, String line) {
+            String[] parts = line.trim().split(",");
+            Result result = new Result(name, scenario);
+            result.completionSeconds = Double.parseDouble(parts[0]);
+            result.finalPose = new Pose2d(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                new Rotation2d(Double.parseDouble(parts[3])));
+            result.endErrorMeters = Double.parseDouble(parts[4]);
+            result.maxPathErrorMeters = Double.parseDouble(parts[5]);
+            double rms = Double.parseDouble(parts[6]);
+            result.pathSamples = Integer.parseInt(parts[7]);
+            result.sumSquaredPathError = rms * rms * result.pathSamples;
+            return result;
+        }
+    }
+}
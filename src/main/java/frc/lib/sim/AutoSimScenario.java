@@ -0,0 +1,75 @@
+package frc.lib.sim;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Conditions one headless auto run happens under. A batch hands them to each child process through
+ * environment variables.
+ */
+public class AutoSimScenario {
+    private static final String allianceKey = "AUTO_SIM_ALLIANCE";
+    private static final String startOffsetKey = "AUTO_SIM_START_OFFSET";
+    private static final String batteryKey = "AUTO_SIM_BATTERY_VOLTS";
+
+    public static final AutoSimScenario nominal = new AutoSimScenario(Alliance.Blue, new Transform2d(), 12);
+
+    public final Alliance alliance;
+    /**
+     * Placement error, robot relative: where the robot really starts compared to the auto's starting
+     * pose. Only the simulated true pose is moved, the estimate still starts where the auto says.
+     */
+    public final Transform2d startOffset;
+    public final double batteryVolts;
+
+    public AutoSimScenario(Alliance alliance, Transform2d startOffset, double batteryVolts) {
+        this.alliance = alliance;
+        this.startOffset = startOffset;
+        this.batteryVolts = batteryVolts;
+    }
+
+    public AllianceStationID getStation() {
+        return alliance == Alliance.Red ? AllianceStationID.Red1 : AllianceStationID.Blue1;
+    }
+
+    /** @return Variables that make {@link #fromEnvironment} return this scenario */
+    public Map<String, String> toEnvironment() {
+        Map<String, String> environment = new HashMap<>();
+        environment.put(allianceKey, alliance.name());
+        environment.put(startOffsetKey, startOffset.getX() + "," + startOffset.getY() + "," + startOffset.getRotation().getDegrees());
+        environment.put(batteryKey, Double.toString(batteryVolts));
+        return environment;
+    }
+
+    /**
+     * @param environment Usually System.getenv()
+     * @return The scenario described by the environment, with {@link #nominal} values for anything unset
+     */
+    public static AutoSimScenario fromEnvironment(Map<String, String> environment) {
+        Alliance alliance = environment.containsKey(allianceKey) ? Alliance.valueOf(environment.get(allianceKey)) : nominal.alliance;
+        Transform2d startOffset = nominal.startOffset;
+        if (environment.containsKey(startOffsetKey)) {
+            String[] parts = environment.get(startOffsetKey).split(",");
+            startOffset = new Transform2d(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                Rotation2d.fromDegrees(Double.parseDouble(parts[2])));
+        }
+        double batteryVolts = environment.containsKey(batteryKey) ? Double.parseDouble(environment.get(batteryKey)) : nominal.batteryVolts;
+        return new AutoSimScenario(alliance, startOffset, batteryVolts);
+    }
+
+    /** @return The start offset, short enough for a report column */
+    public String getStartOffsetLabel() {
+        return String.format("(%.2f, %.2f, %.0f)", startOffset.getX(), startOffset.getY(), startOffset.getRotation().getDegrees());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, offset (%.2f m, %.2f m, %.0f deg), %.1f V", alliance, startOffset.getX(), startOffset.getY(),
+            startOffset.getRotation().getDegrees(), batteryVolts);
+    }
+}
@@ -0,0 +1,30 @@
+package frc.lib.sim;
+
+/** A physics model stepped by {@link PhysicsSim} */
+public interface MechanismSim {
+    /**
+     * Advances the model, reading the output its motor controller is applying and writing the
+     * simulated sensors the robot code reads
+     *
+     * @param dtSeconds Time since the last update
+     */
+    void update(double dtSeconds);
+
+    /** @return Current drawn from the battery after the last update, never negative */
+    default double getCurrentDrawAmps() {
+        return 0;
+    }
+
+    /**
+     * A motor controller passes power through, so the battery supplies the motor's current scaled
+     * by the fraction of the bus voltage applied. Regenerated current is ignored.
+     *
+     * @param statorAmps Motor current, signed
+     * @param appliedVolts Voltage across the motor, signed
+     * @param busVolts Controller input voltage
+     * @return Current drawn from the battery
+     */
+    static double supplyCurrentAmps(double statorAmps, double appliedVolts, double busVolts) {
+        return busVolts > 0 ? Math.abs(statorAmps * appliedVolts / busVolts) : 0;
+    }
+}
@@ -0,0 +1,98 @@
+package frc.lib.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Steps every mechanism model faster than the main loop, so control loops running on motor
+ * controllers or fast robot tasks see the mechanism move between main loops. Run it from the
+ * multi-rate scheduler; that keeps it on the main thread, and with stepped timing it runs the same
+ * number of times per loop every time.
+ *
+ * <p>The models always advance in fixed steps at the physics rate, however the calls are spread. A
+ * call that finds several steps' worth of time elapsed, e.g. when timing is stepped a whole loop at a
+ * time, runs them all; a call that finds less than a step waits for the next one. The models then
+ * integrate the same way in real time, stepped runs and replays.
+ *
+ * <p>After each step the mechanisms' total current is put through a battery model and the sagged
+ * voltage becomes the roboRIO's input voltage, which every model uses for its next step.
+ */
+public class PhysicsSim {
+    private static PhysicsSim instance;
+    /** Most steps one call catches up on, e.g. after sitting at a breakpoint */
+    private static final int maxStepsPerUpdate = 20;
+
+    private final List<MechanismSim> mechanisms = new ArrayList<>();
+    private double nominalVoltage;
+    private final double resistanceOhms;
+    private final double stepSeconds;
+    private double lastTime = Double.NaN;
+    /** Elapsed time not yet stepped */
+    private double pendingSeconds = 0;
+    private final Telemetry.DoubleEntry voltageEntry = Telemetry.getInstance().addDouble("Sim/BatteryVolts", Priority.LOW);
+    private final Telemetry.DoubleEntry currentEntry = Telemetry.getInstance().addDouble("Sim/CurrentAmps", Priority.LOW);
+
+    /** Package private so tests can use their own */
+    PhysicsSim(double nominalVoltage, double resistanceOhms, double rateHz) {
+        this.nominalVoltage = nominalVoltage;
+        this.resistanceOhms = resistanceOhms;
+        stepSeconds = 1 / rateHz;
+    }
+
+    /**
+     * Gets the simulation
+     *
+     * @return The shared simulation
+     */
+    public static PhysicsSim getInstance() {
+        if (instance == null) {
+            instance = new PhysicsSim(SimConstants.batteryNominalVolts, SimConstants.batteryResistanceOhms, SimConstants.physicsRateHz);
+        }
+        return instance;
+    }
+
+    public void add(MechanismSim mechanism) {
+        mechanisms.add(mechanism);
+    }
+
+    /** @param volts Battery voltage with no load */
+    public void setNominalVoltage(double volts) {
+        nominalVoltage = volts;
+        RoboRioSim.setVInVoltage(volts);
+    }
+
+    /** Steps every mechanism through the simulated time since the last call, one fixed step at a time */
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        if (!Double.isNaN(lastTime)) {
+            pendingSeconds = Math.min(pendingSeconds + now - lastTime, maxStepsPerUpdate * stepSeconds);
+        }
+        lastTime = now;
+        // FPGA time is in microseconds, so leave room for rounding rather than lose a step
+        while (pendingSeconds > stepSeconds - 1e-7) {
+            step(stepSeconds);
+            pendingSeconds -= stepSeconds;
+        }
+    }
+
+    /** Steps every mechanism, then sags the battery */
+    private void step(double dtSeconds) {
+        double current = 0;
+        for (int i = 0; i < mechanisms.size(); i++) {
+            MechanismSim mechanism = mechanisms.get(i);
+            mechanism.update(dtSeconds);
+            current += mechanism.getCurrentDrawAmps();
+        }
+        double voltage = BatterySim.calculate(nominalVoltage, resistanceOhms, current);
+        RoboRioSim.setVInVoltage(voltage);
+        voltageEntry.set(voltage);
+        currentEntry.set(current);
+    }
+}
@@ -0,0 +1,46 @@
+package frc.lib.sim;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * Steps paused simulation timing one main loop at a time from its own thread, for replay and
+ * headless runs. {@link SimHooks#stepTiming} waits for every notifier, the robot loop's included,
+ * to be parked before and after each step, and stops at each notifier alarm on the way. Called from
+ * the robot loop it would wait on its own caller, and every addPeriodic task falling due during the
+ * step would run afterwards at one timestamp. From here the faster tasks run at their own times,
+ * and the robot loop is parked whenever the between-loops work runs.
+ */
+public class SteppedSimulation {
+    private final double periodSeconds;
+    private final BooleanSupplier betweenLoops;
+    private final Runnable finish;
+    private final Thread thread;
+
+    /**
+     * @param periodSeconds Main loop period, stepped once per loop
+     * @param betweenLoops Runs after every loop while the robot loop is parked, e.g. to load the
+     *        next loop's inputs. Returns false to stop.
+     * @param finish Runs on the stepping thread once stepping stops, e.g. to end the program
+     */
+    public SteppedSimulation(double periodSeconds, BooleanSupplier betweenLoops, Runnable finish) {
+        this.periodSeconds = periodSeconds;
+        this.betweenLoops = betweenLoops;
+        this.finish = finish;
+        thread = new Thread(this::run, "SteppedSimulation");
+        thread.setDaemon(true);
+    }
+
+    /** Starts stepping. Timing must already be paused; call at the end of robotInit. */
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        do {
+            SimHooks.stepTiming(periodSeconds);
+        } while (betweenLoops.getAsBoolean());
+        finish.run();
+    }
+}
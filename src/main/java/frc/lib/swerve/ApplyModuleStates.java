@@ -0,0 +1,65 @@
+package frc.lib.swerve;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule.DriveRequestType;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Drives each module at a given speed and heading, e.g. from {@link SwerveSetpointGenerator}. The
+ * main loop copies primitives in and the odometry thread writes them into module states it keeps,
+ * so neither side allocates per loop. A heading only gets a new Rotation2d when it changes, which is
+ * at most once per setpoint rather than once per odometry update. Both sides synchronize on the
+ * request, so a module never gets a speed from one setpoint and a heading from another.
+ */
+public class ApplyModuleStates implements SwerveRequest {
+    private final double[] speeds;
+    private final double[] headings;
+    /** Only touched inside {@link #apply} */
+    private final SwerveModuleState[] states;
+    private DriveRequestType driveRequestType = DriveRequestType.OpenLoopVoltage;
+
+    /**
+     * @param moduleCount
+     */
+    public ApplyModuleStates(int moduleCount) {
+        speeds = new double[moduleCount];
+        headings = new double[moduleCount];
+        states = new SwerveModuleState[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            states[i] = new SwerveModuleState();
+        }
+    }
+
+    /**
+     * @param speedsMetersPerSecond Signed speed per module, copied
+     * @param headingsRadians Heading per module, copied
+     * @return This request
+     */
+    public synchronized ApplyModuleStates withStates(double[] speedsMetersPerSecond, double[] headingsRadians) {
+        System.arraycopy(speedsMetersPerSecond, 0, speeds, 0, speeds.length);
+        System.arraycopy(headingsRadians, 0, headings, 0, headings.length);
+        return this;
+    }
+
+    public synchronized ApplyModuleStates withDriveRequestType(DriveRequestType driveRequestType) {
+        this.driveRequestType = driveRequestType;
+        return this;
+    }
+
+    @Override
+    public synchronized StatusCode apply(SwerveControlRequestParameters parameters, SwerveModule... modulesToApply) {
+        for (int i = 0; i < modulesToApply.length; i++) {
+            SwerveModuleState state = states[i];
+            state.speedMetersPerSecond = speeds[i];
+            if (state.angle.getRadians() != headings[i]) {
+                state.angle = new Rotation2d(headings[i]);
+            }
+            modulesToApply[i].apply(state, driveRequestType);
+        }
+        return StatusCode.OK;
+    }
+}
@@ -22,6 +22,48 @@ public class CTREModuleState {
     return new SwerveModuleState(targetSpeed,Rotation2d.fromDegrees(targetAngle));
   }
 
+  /**
+   * Constant time version of {@link #optimize(SwerveModuleState, Rotation2d)} that writes into a
+   * caller provided state, which may be the desired state itself. The target is the desired angle
+   * moved by whole turns to within half a turn of the current angle, then reversed if that's still
+   * more than a quarter turn away, so the cost doesn't depend on how many turns the module has
+   * accumulated. Rotation2d is immutable, so a new one is only created when the target angle
+   * differs from both the desired angle and the one already in the output; a module holding a
+   * heading doesn't allocate.
+   *
+   * @param desiredState The desired state.
+   * @param currentAngle The current module angle, continuous.
+   * @param out Receives the optimized state.
+   * @param cosineScale Scale the speed by the cosine of the remaining angle error, so a module
+   *        that is still turning doesn't push the robot sideways.
+   */
+  public static void optimize(SwerveModuleState desiredState, Rotation2d currentAngle, SwerveModuleState out,
+      boolean cosineScale){
+    Rotation2d desiredAngle = desiredState.angle;
+    double desired = desiredAngle.getRadians();
+    double current = currentAngle.getRadians();
+    double target = desired + 2 * Math.PI * Math.rint((current - desired) / (2 * Math.PI));
+    double targetSpeed = desiredState.speedMetersPerSecond;
+    double delta = target - current;
+    if (delta > Math.PI / 2){
+        target -= Math.PI;
+        targetSpeed = -targetSpeed;
+    } else if (delta < -Math.PI / 2){
+        target += Math.PI;
+        targetSpeed = -targetSpeed;
+    }
+    if (cosineScale){
+        // cos of the error from the cached sines and cosines; reversing only flips its sign
+        targetSpeed *= Math.abs(desiredAngle.getCos() * currentAngle.getCos() + desiredAngle.getSin() * currentAngle.getSin());
+    }
+    out.speedMetersPerSecond = targetSpeed;
+    if (target == desired){
+        out.angle = desiredAngle;
+    } else if (out.angle == null || out.angle.getRadians() != target){
+        out.angle = new Rotation2d(target);
+    }
+  }
+
   /**
      * @param scopeReference Current Angle
      * @param newAngle Target Angle
@@ -48,7 +90,7 @@ public class CTREModuleState {
     if (newAngle - scopeReference > 180){
         newAngle -= 360;
     }
-    if (newAngle + scopeReference < 180){
+    if (newAngle - scopeReference < -180){
         newAngle += 360;
     }
     return newAngle;
@@ -0,0 +1,92 @@
+package frc.lib.swerve;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Drivetrain state from one odometry update. The odometry thread fills these in place and Drive
+ * copies the latest into its own once per loop with {@link Swerve#copySnapshot}, so nothing is
+ * allocated per update. Everything on the main loop reads Drive's copy, so everything read in a
+ * loop comes from the same update. Only the thread that owns a snapshot writes to it.
+ */
+public class DrivetrainSnapshot {
+    /** Incremented on every odometry update */
+    public long version;
+    /** FPGA time in seconds when the snapshot was taken */
+    public double timestamp;
+    /** Immutable, so it is copied by reference */
+    public Pose2d pose = new Pose2d();
+    private final SwerveModuleState[] moduleStates;
+    /** Robot relative chassis speeds */
+    public final ChassisSpeeds chassisSpeeds = new ChassisSpeeds();
+
+    /**
+     * @param moduleCount
+     */
+    public DrivetrainSnapshot(int moduleCount) {
+        moduleStates = new SwerveModuleState[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            moduleStates[i] = new SwerveModuleState();
+        }
+    }
+
+    /**
+     * @param version
+     * @param timestamp
+     * @param pose
+     * @param moduleStates Copied, so the caller may keep mutating its array
+     * @param chassisSpeeds Copied
+     */
+    public DrivetrainSnapshot(long version, double timestamp, Pose2d pose, SwerveModuleState[] moduleStates, ChassisSpeeds chassisSpeeds) {
+        this(moduleStates.length);
+        this.version = version;
+        this.timestamp = timestamp;
+        this.pose = pose;
+        for (int i = 0; i < moduleStates.length; i++) {
+            setModuleState(i, moduleStates[i].speedMetersPerSecond, moduleStates[i].angle);
+        }
+        this.chassisSpeeds.vxMetersPerSecond = chassisSpeeds.vxMetersPerSecond;
+        this.chassisSpeeds.vyMetersPerSecond = chassisSpeeds.vyMetersPerSecond;
+        this.chassisSpeeds.omegaRadiansPerSecond = chassisSpeeds.omegaRadiansPerSecond;
+    }
+
+    /** Overwrites this snapshot with another, module states and speeds by value */
+    public void copyFrom(DrivetrainSnapshot other) {
+        version = other.version;
+        timestamp = other.timestamp;
+        pose = other.pose;
+        for (int i = 0; i < moduleStates.length && i < other.moduleStates.length; i++) {
+            setModuleState(i, other.moduleStates[i].speedMetersPerSecond, other.moduleStates[i].angle);
+        }
+        chassisSpeeds.vxMetersPerSecond = other.chassisSpeeds.vxMetersPerSecond;
+        chassisSpeeds.vyMetersPerSecond = other.chassisSpeeds.vyMetersPerSecond;
+        chassisSpeeds.omegaRadiansPerSecond = other.chassisSpeeds.omegaRadiansPerSecond;
+    }
+
+    /**
+     * @param module
+     * @param speedMetersPerSecond
+     * @param angle Immutable, so it is kept by reference
+     */
+    public void setModuleState(int module, double speedMetersPerSecond, Rotation2d angle) {
+        moduleStates[module].speedMetersPerSecond = speedMetersPerSecond;
+        moduleStates[module].angle = angle;
+    }
+
+    public int getModuleCount() {
+        return moduleStates.length;
+    }
+
+    public SwerveModuleState getModuleState(int module) {
+        return moduleStates[module];
+    }
+
+    /**
+     * @return The module states, overwritten by the next copy. Treat it as read only.
+     */
+    public SwerveModuleState[] getModuleStates() {
+        return moduleStates;
+    }
+}
@@ -0,0 +1,53 @@
+package frc.lib.swerve;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * {@link SwerveRequest.FieldCentricFacingAngle} set from primitives, for commands that aim every
+ * loop. The main loop copies the target in and the odometry thread only builds a new Rotation2d or
+ * Translation2d when it applies the request and the value has changed, so aiming doesn't allocate on
+ * the main loop. Both sides synchronize on the request, so a target is never applied half-copied.
+ */
+public class FacingAngle extends SwerveRequest.FieldCentricFacingAngle {
+    private double velocityX;
+    private double velocityY;
+    private double targetRadians;
+    private double centerX;
+    private double centerY;
+
+    /**
+     * @param velocityXMetersPerSecond Field relative
+     * @param velocityYMetersPerSecond Field relative
+     * @param targetRadians Field relative heading to face
+     * @param centerXMeters Robot relative center of rotation
+     * @param centerYMeters Robot relative center of rotation
+     * @return This request
+     */
+    public synchronized FacingAngle withTarget(double velocityXMetersPerSecond, double velocityYMetersPerSecond,
+            double targetRadians, double centerXMeters, double centerYMeters) {
+        velocityX = velocityXMetersPerSecond;
+        velocityY = velocityYMetersPerSecond;
+        this.targetRadians = targetRadians;
+        centerX = centerXMeters;
+        centerY = centerYMeters;
+        return this;
+    }
+
+    @Override
+    public synchronized StatusCode apply(SwerveControlRequestParameters parameters, SwerveModule... modulesToApply) {
+        VelocityX = velocityX;
+        VelocityY = velocityY;
+        if (TargetDirection.getRadians() != targetRadians) {
+            TargetDirection = new Rotation2d(targetRadians);
+        }
+        if (CenterOfRotation.getX() != centerX || CenterOfRotation.getY() != centerY) {
+            CenterOfRotation = new Translation2d(centerX, centerY);
+        }
+        return super.apply(parameters, modulesToApply);
+    }
+}
@@ -2,8 +2,11 @@ package frc.lib.swerve;
 
 
 //ctre imports
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.MountPoseConfigs;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveDrivetrain;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveDrivetrain.SwerveDriveState;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveDrivetrainConstants;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveModuleConstants;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
@@ -12,14 +15,18 @@ import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
 //math.geometry
 
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Translation2d;
 
 //math.kinematics
 
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.ejml.simple.SimpleMatrix;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+
+import frc.lib.utils.CanBudget;
+import frc.lib.utils.SignalRegistry;
+import frc.robot.Constants.SwerveConstants;
 
 //command imports
 
@@ -27,23 +34,90 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.Command;
 
 public class Swerve extends SwerveDrivetrain {
+    /**
+     * Double buffered: the odometry thread fills the back snapshot without holding anything, then
+     * swaps it to the front under the lock. Readers copy the front out under the same lock, so
+     * nothing is allocated per update and a copy never mixes two updates.
+     */
+    private DrivetrainSnapshot back;
+    private DrivetrainSnapshot front;
+    private final Object snapshotLock = new Object();
+    private volatile long snapshotVersion = 0;
+    /** Least squares chassis speeds from module velocities, row major: vx, vy and omega rows */
+    private final double[][] forwardKinematics;
+    private StatusSignal<Double> pitch;
+    private final double odometryFrequencyHz =
+        RobotBase.isSimulation() ? SwerveConstants.simOdometryFrequencyHz : SwerveConstants.odometryFrequencyHz;
     //private SwerveRequest.ApplyChassisSpeeds autorequest = new SwerveRequest.ApplyChassisSpeeds();
 
     public Swerve(SwerveDrivetrainConstants drivetrainConstants, SwerveModuleConstants[] moduleConstants){
-        super(drivetrainConstants, moduleConstants);
+        super(drivetrainConstants,
+            RobotBase.isSimulation() ? SwerveConstants.simOdometryFrequencyHz : SwerveConstants.odometryFrequencyHz,
+            moduleConstants);
+        back = new DrivetrainSnapshot(ModuleCount);
+        front = new DrivetrainSnapshot(ModuleCount);
+        // The same pseudo-inverse SwerveDriveKinematics uses, worked out once with primitives
+        SimpleMatrix inverseKinematics = new SimpleMatrix(ModuleCount * 2, 3);
+        for(int i = 0; i < ModuleCount; i++){
+            inverseKinematics.setRow(i * 2, 0, 1, 0, -moduleConstants[i].LocationY);
+            inverseKinematics.setRow(i * 2 + 1, 0, 0, 1, moduleConstants[i].LocationX);
+        }
+        SimpleMatrix pseudoInverse = inverseKinematics.pseudoInverse();
+        forwardKinematics = new double[3][ModuleCount * 2];
+        for(int row = 0; row < 3; row++){
+            for(int column = 0; column < ModuleCount * 2; column++){
+                forwardKinematics[row][column] = pseudoInverse.get(row, column);
+            }
+        }
+        // Runs on the odometry thread right after each update, while it still holds the state lock
+        registerTelemetry(this::publishSnapshot);
     }
 
-    public ChassisSpeeds getChassisSpeeds(){
-        return m_kinematics.toChassisSpeeds(getModuleStates());
+    private void publishSnapshot(SwerveDriveState state){
+        if(state.Pose == null || state.ModuleStates == null){
+            return;
+        }
+        DrivetrainSnapshot next = back;
+        next.version = snapshotVersion + 1;
+        next.timestamp = Timer.getFPGATimestamp();
+        next.pose = state.Pose;
+        double vx = 0;
+        double vy = 0;
+        double omega = 0;
+        for(int i = 0; i < ModuleCount; i++){
+            SwerveModuleState moduleState = state.ModuleStates[i];
+            next.setModuleState(i, moduleState.speedMetersPerSecond, moduleState.angle);
+            double moduleX = moduleState.speedMetersPerSecond * moduleState.angle.getCos();
+            double moduleY = moduleState.speedMetersPerSecond * moduleState.angle.getSin();
+            vx += forwardKinematics[0][i * 2] * moduleX + forwardKinematics[0][i * 2 + 1] * moduleY;
+            vy += forwardKinematics[1][i * 2] * moduleX + forwardKinematics[1][i * 2 + 1] * moduleY;
+            omega += forwardKinematics[2][i * 2] * moduleX + forwardKinematics[2][i * 2 + 1] * moduleY;
+        }
+        next.chassisSpeeds.vxMetersPerSecond = vx;
+        next.chassisSpeeds.vyMetersPerSecond = vy;
+        next.chassisSpeeds.omegaRadiansPerSecond = omega;
+        synchronized(snapshotLock){
+            back = front;
+            front = next;
+        }
+        snapshotVersion = next.version;
     }
 
-
-    public SwerveModuleState[] getModuleStates(){
-        return getState().ModuleStates != null? getState().ModuleStates : new SwerveModuleState[] {new SwerveModuleState(), new SwerveModuleState(),new SwerveModuleState(),new SwerveModuleState()};
+    /**
+     * Copies the latest drivetrain state. Copy it once per loop and use the copy for everything so
+     * all values come from the same odometry update.
+     *
+     * @param snapshot Owned by the caller, overwritten
+     */
+    public void copySnapshot(DrivetrainSnapshot snapshot){
+        synchronized(snapshotLock){
+            snapshot.copyFrom(front);
+        }
     }
 
-    public Pose2d getPose2d(){
-        return getState().Pose != null ? getState().Pose : new Pose2d();
+    /** @return Version of the latest odometry update, without copying it */
+    public long getSnapshotVersion(){
+        return snapshotVersion;
     }
 
     public SwerveDriveKinematics getDriveKinematics(){
@@ -51,32 +125,70 @@ public class Swerve extends SwerveDrivetrain {
     }
 
     public void resetPose(Pose2d pose){
+        m_stateLock.writeLock().lock();
         try{
-            m_stateLock.writeLock().lock();
             m_odometry.resetPosition(m_pigeon2.getRotation2d(), m_modulePositions, pose);
         } finally{
-
+            m_stateLock.writeLock().unlock();
         }
     }
 
+    public void zeroGyro(){
+        m_pigeon2.reset();
+    }
+
     public Command zeroGyroCommand(){
-        return Commands.runOnce(() -> m_pigeon2.reset());
+        return Commands.runOnce(this::zeroGyro);
     }
 
-    public double getPitch(){
-        return m_pigeon2.getPitch().getValueAsDouble();
+    /** @return Supply current of every simulated drive and steer motor */
+    public double getSimSupplyCurrent(){
+        // Magnitudes, like the other mechanisms, so regenerating motors don't cancel driving ones
+        double current = 0;
+        for(int i = 0; i < ModuleCount; i++){
+            current += Math.abs(getModule(i).getDriveMotor().getSimState().getSupplyCurrent());
+            current += Math.abs(getModule(i).getSteerMotor().getSimState().getSupplyCurrent());
+        }
+        return current;
     }
 
-    public void targetAngleDrive(Translation2d targetAngle, double forward, double strafe){
-        setControl((new SwerveRequest.FieldCentricFacingAngle().withCenterOfRotation(targetAngle).withVelocityX(forward).withVelocityY(strafe)));
+    public double getPitch(){
+        return pitch.getValueAsDouble();
     }
 
-    public void targetAngleDrive(Rotation2d targetAngle, double forward, double strafe){
-        setControl((new SwerveRequest.FieldCentricFacingAngle().withTargetDirection(targetAngle).withVelocityX(forward).withVelocityY(strafe)));
+    /**
+     * Hands the drivetrain's motors and pigeon to the signal registry so anything odometry doesn't
+     * use is turned off, and adds their traffic to the CAN budget. CANcoders are left alone since
+     * the steer motors fuse them directly.
+     *
+     * <p>The odometry thread only sets its signals' frequencies once it starts running, which may be
+     * after the registry optimizes the bus and turns them off, so they are set here first.
+     */
+    public void registerSignals(){
+        pitch = m_pigeon2.getPitch();
+        SignalRegistry.getInstance().register(m_pigeon2, SwerveConstants.pigeonTelemetryHz, pitch);
+        BaseStatusSignal.setUpdateFrequencyForAll(odometryFrequencyHz, m_pigeon2.getYaw(), m_pigeon2.getAngularVelocityZWorld());
+        SignalRegistry.getInstance().addDevice(m_pigeon2);
+        // Yaw and angular velocity for odometry
+        CanBudget.getInstance().addDevice("Pigeon2", 2 * odometryFrequencyHz);
+        for(int i = 0; i < ModuleCount; i++){
+            var module = getModule(i);
+            var drive = module.getDriveMotor();
+            var steer = module.getSteerMotor();
+            BaseStatusSignal.setUpdateFrequencyForAll(odometryFrequencyHz,
+                drive.getPosition(), drive.getVelocity(), steer.getPosition(), steer.getVelocity());
+            SignalRegistry.getInstance().addDevice(drive);
+            SignalRegistry.getInstance().addDevice(steer);
+            // Position and velocity each
+            CanBudget.getInstance().addDevice("Module" + i + "/Drive", 2 * odometryFrequencyHz);
+            CanBudget.getInstance().addDevice("Module" + i + "/Steer", 2 * odometryFrequencyHz);
+        }
     }
 
+    @Override
     public void addVisionMeasurement(Pose2d pose2d, double timestamp){
-        m_odometry.addVisionMeasurement(pose2d, timestamp);
+        // Goes through the base class so the odometry thread's lock is respected
+        super.addVisionMeasurement(pose2d, timestamp);
     }
 
     public void setPigeonOffset(){
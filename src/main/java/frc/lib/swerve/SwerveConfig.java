@@ -81,6 +81,16 @@ public class SwerveConfig {
   public static final SwerveRequest.SwerveDriveBrake brake = new SwerveRequest.SwerveDriveBrake();
   public static final SwerveRequest.PointWheelsAt pointWheelsAt = new SwerveRequest.PointWheelsAt();
   public static final SwerveRequest.ApplyChassisSpeeds applyChassisSpeeds = new SwerveRequest.ApplyChassisSpeeds();
+  /** Reused every loop to apply the setpoint generator's output */
+  public static final ApplyModuleStates applyModuleStates = new ApplyModuleStates(SwerveConstants.modulePositions.length)
+      .withDriveRequestType(DriveRequestType.OpenLoopVoltage);
+  /** Reused every loop by the aim commands, so the heading gains only need to be set once */
+  public static final FacingAngle facingAngle = new FacingAngle();
+
+  static {
+    facingAngle.HeadingController.setPID(SwerveConstants.headingKP, SwerveConstants.headingKI, SwerveConstants.headingKD);
+    facingAngle.HeadingController.enableContinuousInput(-Math.PI, Math.PI);
+  }
 
   public static ChassisSpeeds toChassisSpeeds(DriverControls driverControls, Drive drive) {
     return new ChassisSpeeds(driverControls.driveForward(), driverControls.driveStrafe(),
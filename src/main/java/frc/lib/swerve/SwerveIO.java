@@ -0,0 +1,81 @@
+package frc.lib.swerve;
+
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.lib.logging.LogTable;
+import frc.lib.logging.LoggableInputs;
+
+/**
+ * Hardware boundary for the drivetrain. Odometry and pose estimation stay below it, so the logged
+ * inputs are the estimated pose and module states rather than raw encoder readings. Every method
+ * defaults to doing nothing, so replaying a log uses the interface itself.
+ */
+public interface SwerveIO {
+    class SwerveIOInputs implements LoggableInputs {
+        private static final int moduleCount = 4;
+        private static final String[] speedKeys = new String[moduleCount];
+        private static final String[] angleKeys = new String[moduleCount];
+        static {
+            for (int i = 0; i < moduleCount; i++) {
+                speedKeys[i] = "Module" + i + "/SpeedMetersPerSecond";
+                angleKeys[i] = "Module" + i + "/AngleRadians";
+            }
+        }
+
+        /** Latest odometry update. The IO layer copies into it; it is rebuilt from the log in replay. */
+        public final DrivetrainSnapshot snapshot = new DrivetrainSnapshot(moduleCount);
+        public double pitchDegrees;
+
+        @Override
+        public void toLog(LogTable table) {
+            table.put("Version", snapshot.version);
+            table.put("Timestamp", snapshot.timestamp);
+            table.put("Pose/X", snapshot.pose.getX());
+            table.put("Pose/Y", snapshot.pose.getY());
+            table.put("Pose/Radians", snapshot.pose.getRotation().getRadians());
+            for (int i = 0; i < snapshot.getModuleCount() && i < moduleCount; i++) {
+                SwerveModuleState state = snapshot.getModuleState(i);
+                table.put(speedKeys[i], state.speedMetersPerSecond);
+                table.put(angleKeys[i], state.angle.getRadians());
+            }
+            table.put("Speeds/Vx", snapshot.chassisSpeeds.vxMetersPerSecond);
+            table.put("Speeds/Vy", snapshot.chassisSpeeds.vyMetersPerSecond);
+            table.put("Speeds/Omega", snapshot.chassisSpeeds.omegaRadiansPerSecond);
+            table.put("PitchDegrees", pitchDegrees);
+        }
+
+        @Override
+        public void fromLog(LogTable table) {
+            pitchDegrees = table.get("PitchDegrees", pitchDegrees);
+            long version = table.get("Version", snapshot.version);
+            if (version == snapshot.version) {
+                return;
+            }
+            snapshot.version = version;
+            snapshot.timestamp = table.get("Timestamp", 0.0);
+            snapshot.pose = new Pose2d(table.get("Pose/X", 0.0), table.get("Pose/Y", 0.0), Rotation2d.fromRadians(table.get("Pose/Radians", 0.0)));
+            for (int i = 0; i < moduleCount; i++) {
+                snapshot.setModuleState(i, table.get(speedKeys[i], 0.0), Rotation2d.fromRadians(table.get(angleKeys[i], 0.0)));
+            }
+            snapshot.chassisSpeeds.vxMetersPerSecond = table.get("Speeds/Vx", 0.0);
+            snapshot.chassisSpeeds.vyMetersPerSecond = table.get("Speeds/Vy", 0.0);
+            snapshot.chassisSpeeds.omegaRadiansPerSecond = table.get("Speeds/Omega", 0.0);
+        }
+    }
+
+    default void updateInputs(SwerveIOInputs inputs) {}
+
+    default void setControl(SwerveRequest request) {}
+
+    default void resetPose(Pose2d pose) {}
+
+    default void addVisionMeasurement(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs) {}
+
+    default void zeroGyro() {}
+}
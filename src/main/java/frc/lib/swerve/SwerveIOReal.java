@@ -0,0 +1,45 @@
+package frc.lib.swerve;
+
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/** Phoenix 6 drivetrain, with odometry running on its own thread */
+public class SwerveIOReal implements SwerveIO {
+    protected final Swerve swerve;
+
+    public SwerveIOReal(Swerve swerve) {
+        this.swerve = swerve;
+        swerve.setPigeonOffset();
+        swerve.registerSignals();
+    }
+
+    @Override
+    public void updateInputs(SwerveIOInputs inputs) {
+        swerve.copySnapshot(inputs.snapshot);
+        inputs.pitchDegrees = swerve.getPitch();
+    }
+
+    @Override
+    public void setControl(SwerveRequest request) {
+        swerve.setControl(request);
+    }
+
+    @Override
+    public void resetPose(Pose2d pose) {
+        swerve.resetPose(pose);
+    }
+
+    @Override
+    public void addVisionMeasurement(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs) {
+        swerve.addVisionMeasurement(pose, timestamp, stdDevs);
+    }
+
+    @Override
+    public void zeroGyro() {
+        swerve.zeroGyro();
+    }
+}
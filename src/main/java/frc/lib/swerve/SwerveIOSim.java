@@ -0,0 +1,92 @@
+package frc.lib.swerve;
+
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.sim.MechanismSim;
+import frc.lib.sim.PhysicsSim;
+import frc.robot.Constants.SimConstants;
+import frc.robot.Constants.SwerveConstants;
+
+/**
+ * The real drivetrain driven by Phoenix's simulated devices, stepped by {@link PhysicsSim} with the
+ * measured time between steps and the sagged battery voltage.
+ *
+ * <p>Phoenix's simulated encoders and gyro are exact, so the robot's odometry would be the truth.
+ * Instead the true pose is integrated alongside it from the measured chassis speeds, with the
+ * translation scaled up by {@link SimConstants#odometryDriftFraction}. Simulated sensors that see the
+ * field, like the cameras, should use {@link #getTruePose}, never the estimated pose.
+ */
+public class SwerveIOSim extends SwerveIOReal implements MechanismSim {
+    /** Longest to wait for the odometry thread, so a stalled thread can't hang the simulation */
+    private static final long odometryTimeoutNanos = 50_000_000;
+
+    /** Written on the main thread, read by the camera threads */
+    private volatile Pose2d truePose = new Pose2d();
+    private Transform2d placementError = new Transform2d();
+    /** The physics step's own copy, since Drive's belongs to the main loop's inputs */
+    private final DrivetrainSnapshot physicsSnapshot = new DrivetrainSnapshot(SwerveConstants.modulePositions.length);
+
+    public SwerveIOSim(Swerve swerve) {
+        super(swerve);
+        PhysicsSim.getInstance().add(this);
+    }
+
+    @Override
+    public void update(double dtSeconds) {
+        swerve.updateSimState(dtSeconds, RobotController.getBatteryVoltage());
+        // Robot relative, measured by the odometry thread from the module states
+        swerve.copySnapshot(physicsSnapshot);
+        ChassisSpeeds speeds = physicsSnapshot.chassisSpeeds;
+        double travel = dtSeconds * (1 + SimConstants.odometryDriftFraction);
+        truePose = truePose.exp(new Twist2d(speeds.vxMetersPerSecond * travel, speeds.vyMetersPerSecond * travel,
+            speeds.omegaRadiansPerSecond * dtSeconds));
+    }
+
+    /** @return Where the simulated robot really is, which odometry drifts away from */
+    public Pose2d getTruePose() {
+        return truePose;
+    }
+
+    /**
+     * @param error Where the robot really is, robot relative, compared to the pose every following
+     *        reset gives the estimate, like a robot placed a little off its starting mark. Applied on
+     *        each reset, so it survives an auto resetting odometry to the same starting pose.
+     */
+    public void setPlacementError(Transform2d error) {
+        placementError = error;
+    }
+
+    @Override
+    public void resetPose(Pose2d pose) {
+        super.resetPose(pose);
+        truePose = pose.transformBy(placementError);
+    }
+
+    @Override
+    public double getCurrentDrawAmps() {
+        return swerve.getSimSupplyCurrent();
+    }
+
+    @Override
+    public void updateInputs(SwerveIOInputs inputs) {
+        if (SimHooks.isTimingPaused()) {
+            // Time is being stepped faster than real time, but the odometry thread runs on the wall
+            // clock; wait for it to pick up the latest steps so the pose doesn't fall behind the robot
+            awaitOdometry(swerve.getSnapshotVersion());
+        }
+        super.updateInputs(inputs);
+    }
+
+    private void awaitOdometry(long version) {
+        long deadline = System.nanoTime() + odometryTimeoutNanos;
+        while (swerve.getSnapshotVersion() == version && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+}
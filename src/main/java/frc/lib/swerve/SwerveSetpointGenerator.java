@@ -0,0 +1,234 @@
+package frc.lib.swerve;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Turns the speeds a driver or path asks for into the fastest setpoint the modules can reach in one
+ * loop. The next setpoint lies on the straight line from the last setpoint to the (desaturated)
+ * request, as far along it as the module limits allow:
+ * <ul>
+ * <li>no module's velocity, as a vector, changes by more than its acceleration allows, or its
+ * deceleration when it is slowing down, which keeps each wheel within its traction budget</li>
+ * <li>no module has to turn faster than its steering velocity allows, counting a reversed wheel as
+ * the same heading</li>
+ * </ul>
+ * A module that has to turn further than that first slows to a stop and turns in place, so the robot
+ * never commands a wheel along a heading it isn't pointing at yet. No heading in the output moves
+ * further than the steering allows, even right after {@link #reset} from a measured state that
+ * doesn't agree with itself.
+ *
+ * <p>Everything is preallocated and the steering search is a fixed number of bisection steps, so
+ * {@link #generate} doesn't allocate and costs a few microseconds.
+ */
+public class SwerveSetpointGenerator {
+    /** Module speed in meters per second below which its heading doesn't matter */
+    private static final double stoppedSpeed = 1e-3;
+    private static final int steerSearchIterations = 10;
+
+    private final int moduleCount;
+    private final double[] moduleX;
+    private final double[] moduleY;
+    private final double maxModuleVelocity;
+    private final double maxModuleAcceleration;
+    private final double maxModuleDeceleration;
+    private final double maxSteerVelocity;
+
+    /** Last setpoint, robot relative */
+    private final ChassisSpeeds setpoint = new ChassisSpeeds();
+    /** Direction each module's wheel points in the last setpoint, radians */
+    private final double[] headings;
+    /** Signed speed along {@link #headings}, meters per second */
+    private final double[] speeds;
+    /** Module velocity of the last setpoint */
+    private final double[] fromX;
+    private final double[] fromY;
+    /** Change in module velocity from the last setpoint to the request */
+    private final double[] deltaX;
+    private final double[] deltaY;
+
+    /**
+     * @param modulePositions Module locations relative to the robot center, in the same order as the
+     *        drivetrain's kinematics
+     * @param maxModuleVelocity Meters per second
+     * @param maxModuleAcceleration Meters per second squared
+     * @param maxModuleDeceleration Meters per second squared, used while a module is slowing down
+     * @param maxSteerVelocity Radians per second
+     */
+    public SwerveSetpointGenerator(Translation2d[] modulePositions, double maxModuleVelocity,
+            double maxModuleAcceleration, double maxModuleDeceleration, double maxSteerVelocity) {
+        moduleCount = modulePositions.length;
+        moduleX = new double[moduleCount];
+        moduleY = new double[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            moduleX[i] = modulePositions[i].getX();
+            moduleY[i] = modulePositions[i].getY();
+        }
+        this.maxModuleVelocity = maxModuleVelocity;
+        this.maxModuleAcceleration = maxModuleAcceleration;
+        this.maxModuleDeceleration = maxModuleDeceleration;
+        this.maxSteerVelocity = maxSteerVelocity;
+        headings = new double[moduleCount];
+        speeds = new double[moduleCount];
+        fromX = new double[moduleCount];
+        fromY = new double[moduleCount];
+        deltaX = new double[moduleCount];
+        deltaY = new double[moduleCount];
+    }
+
+    /**
+     * Starts from the measured state, e.g. after being disabled or after another request had control
+     *
+     * @param snapshot Robot relative speeds and module states to start from
+     */
+    public void reset(DrivetrainSnapshot snapshot) {
+        setpoint.vxMetersPerSecond = snapshot.chassisSpeeds.vxMetersPerSecond;
+        setpoint.vyMetersPerSecond = snapshot.chassisSpeeds.vyMetersPerSecond;
+        setpoint.omegaRadiansPerSecond = snapshot.chassisSpeeds.omegaRadiansPerSecond;
+        for (int i = 0; i < moduleCount; i++) {
+            headings[i] = snapshot.getModuleState(i).angle.getRadians();
+            speeds[i] = snapshot.getModuleState(i).speedMetersPerSecond;
+        }
+    }
+
+    /**
+     * Moves the setpoint as far toward the requested speeds as the module limits allow in one period
+     *
+     * @param vx Requested robot relative speed, meters per second
+     * @param vy Requested robot relative speed, meters per second
+     * @param omega Requested rotation rate, radians per second
+     * @param dtSeconds Time since the last setpoint
+     */
+    public void generate(double vx, double vy, double omega, double dtSeconds) {
+        // Scale the whole request down if any module would have to exceed its top speed
+        double fastest = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            double x = vx - omega * moduleY[i];
+            double y = vy + omega * moduleX[i];
+            fastest = Math.max(fastest, Math.sqrt(x * x + y * y));
+        }
+        if (fastest > maxModuleVelocity) {
+            double scale = maxModuleVelocity / fastest;
+            vx *= scale;
+            vy *= scale;
+            omega *= scale;
+        }
+
+        double dvx = vx - setpoint.vxMetersPerSecond;
+        double dvy = vy - setpoint.vyMetersPerSecond;
+        double domega = omega - setpoint.omegaRadiansPerSecond;
+        double maxTurn = maxSteerVelocity * dtSeconds;
+
+        // Module velocities are linear in the chassis speeds, so each one moves along a straight
+        // line as well and its change is the fraction times the full change
+        double fraction = 1;
+        for (int i = 0; i < moduleCount; i++) {
+            fromX[i] = setpoint.vxMetersPerSecond - setpoint.omegaRadiansPerSecond * moduleY[i];
+            fromY[i] = setpoint.vyMetersPerSecond + setpoint.omegaRadiansPerSecond * moduleX[i];
+            deltaX[i] = dvx - domega * moduleY[i];
+            deltaY[i] = dvy + domega * moduleX[i];
+            double change = Math.sqrt(deltaX[i] * deltaX[i] + deltaY[i] * deltaY[i]);
+            double toX = fromX[i] + deltaX[i];
+            double toY = fromY[i] + deltaY[i];
+            boolean slowing = toX * toX + toY * toY < fromX[i] * fromX[i] + fromY[i] * fromY[i];
+            double maxChange = (slowing ? maxModuleDeceleration : maxModuleAcceleration) * dtSeconds;
+            if (change * fraction > maxChange) {
+                fraction = maxChange / change;
+            }
+        }
+        for (int i = 0; i < moduleCount; i++) {
+            if (!canSteer(i, fraction, maxTurn)) {
+                fraction = findSteerLimit(i, fraction, maxTurn);
+            }
+        }
+
+        setpoint.vxMetersPerSecond += fraction * dvx;
+        setpoint.vyMetersPerSecond += fraction * dvy;
+        setpoint.omegaRadiansPerSecond += fraction * domega;
+        for (int i = 0; i < moduleCount; i++) {
+            double x = fromX[i] + fraction * deltaX[i];
+            double y = fromY[i] + fraction * deltaY[i];
+            double speed = Math.sqrt(x * x + y * y);
+            if (speed < stoppedSpeed) {
+                speeds[i] = 0;
+                // Turn in place toward the requested heading so the next setpoints can move
+                double targetX = fromX[i] + deltaX[i];
+                double targetY = fromY[i] + deltaY[i];
+                if (targetX * targetX + targetY * targetY >= stoppedSpeed * stoppedSpeed) {
+                    double error = wrapHalfTurn(Math.atan2(targetY, targetX) - headings[i]);
+                    headings[i] = MathUtil.angleModulus(headings[i] + MathUtil.clamp(error, -maxTurn, maxTurn));
+                }
+            } else {
+                double heading = Math.atan2(y, x);
+                // Reverse the wheel rather than turning it more than a quarter turn
+                if (Math.abs(MathUtil.angleModulus(heading - headings[i])) > Math.PI / 2) {
+                    heading = MathUtil.angleModulus(heading + Math.PI);
+                    speed = -speed;
+                }
+                // Only binds when the last setpoint's heading and velocity disagree, e.g. after a
+                // reset; the wheel then drives the part of its velocity it is pointing along
+                double error = MathUtil.angleModulus(heading - headings[i]);
+                if (Math.abs(error) > maxTurn) {
+                    double turn = MathUtil.clamp(error, -maxTurn, maxTurn);
+                    speed *= Math.cos(error - turn);
+                    heading = MathUtil.angleModulus(headings[i] + turn);
+                }
+                headings[i] = heading;
+                speeds[i] = speed;
+            }
+        }
+    }
+
+    /** @return Whether module i can reach the setpoint the given fraction of the way to the request */
+    private boolean canSteer(int i, double fraction, double maxTurn) {
+        double x = fromX[i] + fraction * deltaX[i];
+        double y = fromY[i] + fraction * deltaY[i];
+        if (x * x + y * y < stoppedSpeed * stoppedSpeed) {
+            return true;
+        }
+        return Math.abs(wrapHalfTurn(Math.atan2(y, x) - headings[i])) <= maxTurn;
+    }
+
+    /**
+     * Bisects for the furthest fraction module i can steer to. Fraction 0 is the last setpoint, which
+     * the module is already on, and the heading only drifts one way along the line, so this finds
+     * where it first runs out of steering. A stopped module that has to turn first gets 0: creeping
+     * a hair below the stopped speed wouldn't get it anywhere, and the creep would add up.
+     */
+    private double findSteerLimit(int i, double upper, double maxTurn) {
+        if (fromX[i] * fromX[i] + fromY[i] * fromY[i] < stoppedSpeed * stoppedSpeed) {
+            return 0;
+        }
+        double lower = 0;
+        for (int iteration = 0; iteration < steerSearchIterations; iteration++) {
+            double middle = (lower + upper) / 2;
+            if (canSteer(i, middle, maxTurn)) {
+                lower = middle;
+            } else {
+                upper = middle;
+            }
+        }
+        return lower;
+    }
+
+    /** @return The angle wrapped to [-pi/2, pi/2], since a reversed wheel points the same way */
+    private static double wrapHalfTurn(double radians) {
+        return radians - Math.PI * Math.rint(radians / Math.PI);
+    }
+
+    /** @return The last setpoint, robot relative. Updated in place by every {@link #generate}. */
+    public ChassisSpeeds getSetpoint() {
+        return setpoint;
+    }
+
+    /** @return Signed module speeds of the last setpoint, meters per second. Updated in place. */
+    public double[] getModuleSpeeds() {
+        return speeds;
+    }
+
+    /** @return Module headings of the last setpoint, radians. Updated in place. */
+    public double[] getModuleHeadings() {
+        return headings;
+    }
+}
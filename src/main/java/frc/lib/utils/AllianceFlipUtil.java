@@ -9,7 +9,6 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
 
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.DriverStation.Alliance;
 
 public class AllianceFlipUtil {
     /**Utility function for flipping from red and blue */
@@ -78,6 +77,14 @@ public class AllianceFlipUtil {
     }
 
     public static boolean shouldFlip(){
-        return DriverStation.getAlliance().isPresent() && DriverStation.getAlliance().get() == Alliance.Red;
+        // Read the raw station, getAlliance() wraps it in a new Optional on every call
+        switch (DriverStation.getRawAllianceStation()) {
+            case Red1:
+            case Red2:
+            case Red3:
+                return true;
+            default:
+                return false;
+        }
     }
 }
@@ -0,0 +1,69 @@
+package frc.lib.utils;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Builds the selected autonomous command while the robot is disabled so autonomousInit only has to
+ * schedule it. The cached command is keyed on the chooser selection and the alliance color and is
+ * rebuilt whenever either changes.
+ *
+ * <p>Building happens on the main thread: PathPlanner composes its commands through the
+ * CommandScheduler, which is not thread safe. Disabled loops have nothing else to do, so the cost
+ * is hidden there instead.
+ */
+public class AutoPreloader {
+    private final SendableChooser<Supplier<Command>> chooser;
+
+    private Supplier<Command> cachedSelection;
+    private Optional<Alliance> cachedAlliance = Optional.empty();
+    private Command cachedCommand;
+
+    public AutoPreloader(SendableChooser<Supplier<Command>> chooser) {
+        this.chooser = chooser;
+    }
+
+    /** Rebuilds the cached command if the selection or alliance changed. Call from disabledPeriodic. */
+    public void update() {
+        Supplier<Command> selected = chooser.getSelected();
+        if (selected == null || isCached(selected)) {
+            return;
+        }
+        cachedSelection = selected;
+        cachedAlliance = DriverStation.getAlliance();
+        double start = System.nanoTime();
+        cachedCommand = selected.get();
+        SmartDashboard.putNumber("Auto/BuildTimeMs", (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Gets the command for the current selection, building it now only if the cache is stale. The
+     * cache is cleared afterwards so the next auto gets a fresh command.
+     *
+     * @return The selected autonomous command, or null if nothing is selected
+     */
+    public Command get() {
+        Supplier<Command> selected = chooser.getSelected();
+        if (selected == null) {
+            return null;
+        }
+        boolean hit = isCached(selected);
+        SmartDashboard.putBoolean("Auto/UsedPrebuilt", hit);
+        Command command = hit ? cachedCommand : selected.get();
+        cachedSelection = null;
+        cachedCommand = null;
+        return command;
+    }
+
+    private boolean isCached(Supplier<Command> selected) {
+        return cachedCommand != null
+            && selected == cachedSelection
+            && DriverStation.getAlliance().equals(cachedAlliance);
+    }
+}
@@ -0,0 +1,100 @@
+package frc.lib.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ctre.phoenix6.CANBus;
+import com.ctre.phoenix6.CANBus.CANBusStatus;
+
+import edu.wpi.first.wpilibj.CANStatus;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.lib.utils.Telemetry.Priority;
+import frc.robot.Constants.SwerveConstants;
+
+/**
+ * Keeps track of how many frames per second each device is configured to send and publishes the
+ * measured bus load and error counters next to it, so the remaining headroom is visible at a
+ * glance. Frame rates are what we asked the devices for, not measured per device.
+ */
+public class CanBudget {
+    /** Roughly the bits in an extended data frame with 8 bytes and stuffing */
+    private static final double bitsPerFrame = 130;
+    private static final double rioBitRate = 1_000_000;
+
+    private static CanBudget instance;
+
+    private final String canivoreName;
+    private final Map<String, Double> deviceFramesPerSecond = new HashMap<>();
+    private double totalFramesPerSecond = 0;
+    private final BusEntries rioEntries = new BusEntries("rio");
+    private final BusEntries canivoreEntries;
+
+    private CanBudget(String canivoreName) {
+        this.canivoreName = canivoreName;
+        canivoreEntries = !canivoreName.isEmpty() && !canivoreName.equals("rio") ? new BusEntries(canivoreName) : null;
+    }
+
+    /**
+     * Gets the budget
+     *
+     * @return The shared budget
+     */
+    public static CanBudget getInstance() {
+        if (instance == null) {
+            instance = new CanBudget(SwerveConstants.CANBusName);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a device's configured traffic to the budget. Calling again for the same device adds to
+     * what it already has.
+     *
+     * @param name Shown on the dashboard
+     * @param framesPerSecond Frames the device was configured to send
+     */
+    public void addDevice(String name, double framesPerSecond) {
+        totalFramesPerSecond += framesPerSecond;
+        double deviceTotal = deviceFramesPerSecond.merge(name, framesPerSecond, Double::sum);
+        SmartDashboard.putNumber("CAN/Devices/" + name, deviceTotal);
+        SmartDashboard.putNumber("CAN/ConfiguredFramesPerSecond", totalFramesPerSecond);
+        SmartDashboard.putNumber("CAN/ConfiguredUtilization", totalFramesPerSecond * bitsPerFrame / rioBitRate);
+    }
+
+    /** Publishes measured utilization and error counters. Call at a telemetry rate. */
+    public void publish() {
+        CANStatus rio = RobotController.getCANStatus();
+        rioEntries.set(rio.percentBusUtilization, rio.transmitErrorCount, rio.receiveErrorCount, rio.txFullCount, rio.busOffCount);
+
+        if (canivoreEntries != null) {
+            CANBusStatus canivore = CANBus.getStatus(canivoreName);
+            canivoreEntries.set(canivore.BusUtilization, canivore.TEC, canivore.REC, canivore.TxFullCount, canivore.BusOffCount);
+        }
+    }
+
+    private static class BusEntries {
+        private final Telemetry.DoubleEntry utilization;
+        private final Telemetry.DoubleEntry txErrors;
+        private final Telemetry.DoubleEntry rxErrors;
+        private final Telemetry.DoubleEntry txFull;
+        private final Telemetry.DoubleEntry busOff;
+
+        private BusEntries(String bus) {
+            String prefix = "CAN/" + bus + "/";
+            utilization = Telemetry.getInstance().addDouble(prefix + "Utilization", Priority.HIGH);
+            txErrors = Telemetry.getInstance().addDouble(prefix + "TxErrors", Priority.LOW);
+            rxErrors = Telemetry.getInstance().addDouble(prefix + "RxErrors", Priority.LOW);
+            txFull = Telemetry.getInstance().addDouble(prefix + "TxFull", Priority.LOW);
+            busOff = Telemetry.getInstance().addDouble(prefix + "BusOff", Priority.LOW);
+        }
+
+        private void set(double utilization, double txErrors, double rxErrors, double txFull, double busOff) {
+            this.utilization.set(utilization);
+            this.txErrors.set(txErrors);
+            this.rxErrors.set(rxErrors);
+            this.txFull.set(txFull);
+            this.busOff.set(busOff);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package frc.lib.utils;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Lookup table resampled at a fixed spacing when it is built, so each query is an index
+ * calculation and one linear interpolation no matter how many points the table was made from.
+ * Queries outside the range return the nearest end value.
+ */
+public class InterpolatingTable {
+    private final double minKey;
+    private final double step;
+    private final double[] samples;
+
+    /**
+     * @param keys Strictly increasing keys, at least one
+     * @param values Value at each key
+     * @param step Spacing of the resampled table, in key units
+     */
+    public InterpolatingTable(double[] keys, double[] values, double step) {
+        if (keys.length == 0 || keys.length != values.length) {
+            throw new IllegalArgumentException("Table needs matching, non-empty keys and values");
+        }
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] <= keys[i - 1]) {
+                throw new IllegalArgumentException("Table keys must be strictly increasing");
+            }
+        }
+        this.minKey = keys[0];
+        this.step = step;
+        samples = new double[(int) Math.ceil((keys[keys.length - 1] - minKey) / step) + 1];
+
+        int segment = 0;
+        for (int i = 0; i < samples.length; i++) {
+            double key = Math.min(minKey + i * step, keys[keys.length - 1]);
+            while (segment < keys.length - 2 && key > keys[segment + 1]) {
+                segment++;
+            }
+            if (keys.length == 1) {
+                samples[i] = values[0];
+            } else {
+                double t = (key - keys[segment]) / (keys[segment + 1] - keys[segment]);
+                samples[i] = MathUtil.interpolate(values[segment], values[segment + 1], t);
+            }
+        }
+    }
+
+    /**
+     * @param key
+     * @return The interpolated value at the key
+     */
+    public double get(double key) {
+        double position = MathUtil.clamp((key - minKey) / step, 0, samples.length - 1);
+        int index = (int) position;
+        if (index >= samples.length - 1) {
+            return samples[samples.length - 1];
+        }
+        return MathUtil.interpolate(samples[index], samples[index + 1], position - index);
+    }
+}
@@ -0,0 +1,217 @@
+package frc.lib.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Records how long each part of the robot loop takes. Sections are registered once and then timed
+ * with {@link #start(int)} / {@link #stop(int)}, which only write into preallocated histograms.
+ * A [p50, p99, max] summary in milliseconds is published to NetworkTables every few loops, and the
+ * slowest sections are reported whenever the loop runs over its budget.
+ */
+public class LoopProfiler {
+    private static final String tableKey = "LoopProfiler";
+    /** Histogram resolution in microseconds */
+    private static final int bucketWidthMicros = 100;
+    /** Anything slower than bucketCount * bucketWidth lands in the last bucket */
+    private static final int bucketCount = 500;
+    private static final int publishEveryLoops = 25;
+    private static final int offendersToReport = 3;
+
+    private static LoopProfiler instance;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable(tableKey);
+    private final List<Section> sections = new ArrayList<>();
+    /** By name, since commands built on the fly (e.g. each press of a button) would add a section every time */
+    private final Map<String, Section> commandSections = new HashMap<>();
+    private final Section loopSection;
+    private final double budgetSeconds;
+    private int loopCount = 0;
+    private long lastMarkMicros;
+
+    private LoopProfiler(double budgetSeconds) {
+        this.budgetSeconds = budgetSeconds;
+        loopSection = sections.get(register("Loop"));
+    }
+
+    /**
+     * Gets the profiler, creating it with the default 20 ms budget if needed
+     *
+     * @return The shared profiler
+     */
+    public static LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler(0.02);
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a named section. Call once at construction time, not every loop.
+     *
+     * @param name Name shown on the dashboard
+     * @return Handle passed to {@link #start(int)} and {@link #stop(int)}
+     */
+    public int register(String name) {
+        sections.add(new Section(name, table.getDoubleArrayTopic(name).publish()));
+        return sections.size() - 1;
+    }
+
+    /** Starts timing a section */
+    public void start(int section) {
+        sections.get(section).startMicros = RobotController.getFPGATime();
+    }
+
+    /** Stops timing a section and records its duration */
+    public void stop(int section) {
+        long now = RobotController.getFPGATime();
+        Section s = sections.get(section);
+        s.record(now - s.startMicros);
+        lastMarkMicros = now;
+    }
+
+    /**
+     * Times every scheduled command's execute(). The scheduler only calls back after execute, so
+     * each command is charged the time since the previous mark. Commands sharing a name share a
+     * section.
+     */
+    public void profileCommands(CommandScheduler scheduler) {
+        scheduler.onCommandExecute(this::markCommand);
+    }
+
+    /** Marks a point in the loop so the next command is only charged from here */
+    public void mark() {
+        lastMarkMicros = RobotController.getFPGATime();
+    }
+
+    private void markCommand(Command command) {
+        long now = RobotController.getFPGATime();
+        String name = command.getName();
+        Section s = commandSections.get(name);
+        if (s == null) {
+            s = sections.get(register(name + ".execute()"));
+            commandSections.put(name, s);
+        }
+        s.record(now - lastMarkMicros);
+        lastMarkMicros = now;
+    }
+
+    /** Call at the start of robotPeriodic */
+    public void startLoop() {
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).lastMicros = 0;
+        }
+        loopSection.startMicros = RobotController.getFPGATime();
+        lastMarkMicros = loopSection.startMicros;
+    }
+
+    /** Call at the end of robotPeriodic. Publishes the summary and reports overruns. */
+    public void endLoop() {
+        loopSection.record(RobotController.getFPGATime() - loopSection.startMicros);
+        if (loopSection.lastMicros > budgetSeconds * 1e6) {
+            reportOverrun();
+        }
+        if (++loopCount >= publishEveryLoops) {
+            loopCount = 0;
+            for (int i = 0; i < sections.size(); i++) {
+                sections.get(i).publish();
+            }
+        }
+    }
+
+    /** @return Duration of the most recent complete loop */
+    public long getLastLoopMicros() {
+        return loopSection.lastMicros;
+    }
+
+    /** Clears every histogram, e.g. when switching modes */
+    public void reset() {
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).reset();
+        }
+    }
+
+    private void reportOverrun() {
+        StringBuilder message = new StringBuilder("Loop overrun (")
+            .append(loopSection.lastMicros / 1000.0).append(" ms), slowest:");
+        boolean[] reported = new boolean[sections.size()];
+        for (int n = 0; n < offendersToReport; n++) {
+            int worst = -1;
+            for (int i = 1; i < sections.size(); i++) {
+                if (!reported[i] && sections.get(i).lastMicros > 0
+                        && (worst < 0 || sections.get(i).lastMicros > sections.get(worst).lastMicros)) {
+                    worst = i;
+                }
+            }
+            if (worst < 0) {
+                break;
+            }
+            reported[worst] = true;
+            message.append(' ').append(sections.get(worst).name)
+                .append('=').append(sections.get(worst).lastMicros / 1000.0).append("ms");
+        }
+        DriverStation.reportWarning(message.toString(), false);
+    }
+
+    private static class Section {
+        private final String name;
+        private final DoubleArrayPublisher publisher;
+        private final int[] buckets = new int[bucketCount];
+        private final double[] summary = new double[3];
+        private long startMicros;
+        private long lastMicros;
+        private long maxMicros;
+        private int samples;
+
+        private Section(String name, DoubleArrayPublisher publisher) {
+            this.name = name;
+            this.publisher = publisher;
+        }
+
+        private void record(long micros) {
+            lastMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+            buckets[(int) Math.min(micros / bucketWidthMicros, bucketCount - 1)]++;
+            samples++;
+        }
+
+        private double percentileMillis(double percentile) {
+            int target = (int) Math.ceil(samples * percentile);
+            int seen = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return (i + 1) * bucketWidthMicros / 1000.0;
+                }
+            }
+            return bucketCount * bucketWidthMicros / 1000.0;
+        }
+
+        private void publish() {
+            if (samples == 0) {
+                return;
+            }
+            summary[0] = percentileMillis(0.5);
+            summary[1] = percentileMillis(0.99);
+            summary[2] = maxMicros / 1000.0;
+            publisher.set(summary);
+        }
+
+        private void reset() {
+            Arrays.fill(buckets, 0);
+            maxMicros = 0;
+            samples = 0;
+        }
+    }
+}
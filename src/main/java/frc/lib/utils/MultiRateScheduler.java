@@ -0,0 +1,157 @@
+package frc.lib.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+
+/**
+ * Runs periodic work at rates other than the main 50 Hz loop. Slower tasks run every Nth loop from
+ * {@link #run()}, each given the phase that overlaps the fewest existing tasks so slow work is
+ * spread across loops instead of landing on the same one. Faster tasks are added to the robot with
+ * {@link TimedRobot#addPeriodic}, so they run on the main thread between loops and can safely
+ * touch subsystem state. Every task is timed as its own {@link LoopProfiler} section.
+ */
+public class MultiRateScheduler {
+    private static MultiRateScheduler instance;
+
+    private final double basePeriodSeconds;
+    private final LoopProfiler profiler = LoopProfiler.getInstance();
+    private final List<SlowTask> slowTasks = new ArrayList<>();
+    private final List<FastTask> fastTasks = new ArrayList<>();
+    private final int runSection = profiler.register("MultiRate.run()");
+    private TimedRobot robot;
+    private long cycle = 0;
+
+    private MultiRateScheduler(double basePeriodSeconds) {
+        this.basePeriodSeconds = basePeriodSeconds;
+    }
+
+    /**
+     * Gets the scheduler, creating it for the default 20 ms loop if needed
+     *
+     * @return The shared scheduler
+     */
+    public static MultiRateScheduler getInstance() {
+        if (instance == null) {
+            instance = new MultiRateScheduler(TimedRobot.kDefaultPeriod);
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a task to run at roughly the given rate. Rates at or below the main loop rate are
+     * rounded to a whole number of loops.
+     *
+     * @param name Shown in the loop profiler
+     * @param task Work to run
+     * @param rateHz Desired rate
+     */
+    public void addPeriodic(String name, Runnable task, double rateHz) {
+        String sectionName = name + "@" + Math.round(rateHz) + "Hz";
+        double periodSeconds = 1.0 / rateHz;
+        if (periodSeconds < basePeriodSeconds) {
+            FastTask fast = new FastTask(task, periodSeconds, profiler.register(sectionName));
+            fastTasks.add(fast);
+            if (robot != null) {
+                schedule(fast, fastTasks.size() - 1);
+            }
+            return;
+        }
+        int divisor = Math.max(1, (int) Math.round(periodSeconds / basePeriodSeconds));
+        slowTasks.add(new SlowTask(task, divisor, choosePhase(divisor), profiler.register(sectionName)));
+    }
+
+    /**
+     * Two tasks with divisors a and b land on the same loop when their phases agree modulo
+     * gcd(a, b), so pick the phase that agrees with the fewest existing tasks.
+     */
+    private int choosePhase(int divisor) {
+        int bestPhase = 0;
+        int bestOverlap = Integer.MAX_VALUE;
+        for (int phase = 0; phase < divisor; phase++) {
+            int overlap = 0;
+            for (int i = 0; i < slowTasks.size(); i++) {
+                SlowTask other = slowTasks.get(i);
+                int gcd = gcd(divisor, other.divisor);
+                if (phase % gcd == other.phase % gcd) {
+                    overlap++;
+                }
+            }
+            if (overlap < bestOverlap) {
+                bestOverlap = overlap;
+                bestPhase = phase;
+            }
+        }
+        return bestPhase;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Hooks fast tasks into the robot's loop. Tasks registered afterwards are hooked immediately.
+     *
+     * @param robot The robot
+     */
+    public void start(TimedRobot robot) {
+        this.robot = robot;
+        for (int i = 0; i < fastTasks.size(); i++) {
+            schedule(fastTasks.get(i), i);
+        }
+    }
+
+    /** Offsets each fast task by a couple of milliseconds so they don't all fire together */
+    private void schedule(FastTask fast, int index) {
+        double offset = (0.002 * (index + 1)) % fast.periodSeconds;
+        robot.addPeriodic(fast::run, fast.periodSeconds, offset);
+    }
+
+    /** Runs the slow tasks due this loop. Call once per robotPeriodic. */
+    public void run() {
+        profiler.start(runSection);
+        for (int i = 0; i < slowTasks.size(); i++) {
+            SlowTask slow = slowTasks.get(i);
+            if (cycle % slow.divisor == slow.phase) {
+                profiler.start(slow.section);
+                slow.task.run();
+                profiler.stop(slow.section);
+            }
+        }
+        cycle++;
+        profiler.stop(runSection);
+    }
+
+    private static class SlowTask {
+        private final Runnable task;
+        private final int divisor;
+        private final int phase;
+        private final int section;
+
+        private SlowTask(Runnable task, int divisor, int phase, int section) {
+            this.task = task;
+            this.divisor = divisor;
+            this.phase = phase;
+            this.section = section;
+        }
+    }
+
+    private class FastTask {
+        private final Runnable task;
+        private final double periodSeconds;
+        private final int section;
+
+        private FastTask(Runnable task, double periodSeconds, int section) {
+            this.task = task;
+            this.periodSeconds = periodSeconds;
+            this.section = section;
+        }
+
+        private void run() {
+            profiler.start(section);
+            task.run();
+            profiler.stop(section);
+        }
+    }
+}
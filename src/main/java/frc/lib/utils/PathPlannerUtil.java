@@ -18,7 +18,6 @@ import edu.wpi.first.networktables.DoubleArraySubscriber;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
-import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.Constants.SwerveConstants;
@@ -47,7 +46,7 @@ public class PathPlannerUtil {
             drive::getChassisSpeeds,
             drive::driveRobotCentric,
             config,
-            () -> DriverStation.getAlliance().get() == Alliance.Red,
+            AllianceFlipUtil::shouldFlip,
             drive
         );
 
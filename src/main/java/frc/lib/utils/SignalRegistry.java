@@ -0,0 +1,124 @@
+package frc.lib.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.hardware.ParentDevice;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Central list of every Phoenix 6 status signal the robot code reads. Subsystems register their
+ * signals once with an update frequency, all of them are refreshed together in a single
+ * {@link BaseStatusSignal#refreshAll} call at the start of each loop, and devices have any signal
+ * nobody registered turned off with optimizeBusUtilization.
+ */
+public class SignalRegistry {
+    private static final String tableKey = "Signals";
+
+    private static SignalRegistry instance;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable(tableKey);
+    private final List<BaseStatusSignal> signalList = new ArrayList<>();
+    private final List<ParentDevice> devices = new ArrayList<>();
+    private final List<DoubleArrayPublisher> publishers = new ArrayList<>();
+    private final double[] health = new double[3];
+    private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+    private StatusCode lastStatus = StatusCode.OK;
+    private boolean optimized = false;
+
+    private SignalRegistry() {}
+
+    /**
+     * Gets the registry
+     *
+     * @return The shared registry
+     */
+    public static SignalRegistry getInstance() {
+        if (instance == null) {
+            instance = new SignalRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a device's signals. Call before {@link #optimizeBusUtilization()}.
+     *
+     * @param device Device the signals belong to
+     * @param frequencyHz How often the device should send them
+     * @param deviceSignals Signals to refresh every loop
+     */
+    public void register(ParentDevice device, double frequencyHz, BaseStatusSignal... deviceSignals) {
+        BaseStatusSignal.setUpdateFrequencyForAll(frequencyHz, deviceSignals);
+        for (BaseStatusSignal signal : deviceSignals) {
+            signalList.add(signal);
+            publishers.add(table.getDoubleArrayTopic(getName(device) + "/" + signal.getName()).publish());
+        }
+        signals = signalList.toArray(new BaseStatusSignal[0]);
+        // Upper bound, signals that share a frame are counted once each
+        CanBudget.getInstance().addDevice(getName(device), frequencyHz * deviceSignals.length);
+        addDevice(device);
+    }
+
+    /**
+     * Adds a device whose signals someone else manages, so its unused signals still get turned
+     * off. Signals given an explicit frequency elsewhere are left alone.
+     *
+     * @param device
+     */
+    public void addDevice(ParentDevice device) {
+        if (devices.contains(device)) {
+            return;
+        }
+        devices.add(device);
+        if (optimized) {
+            device.optimizeBusUtilization();
+        }
+    }
+
+    private static String getName(ParentDevice device) {
+        return device.getClass().getSimpleName() + device.getDeviceID();
+    }
+
+    /**
+     * Turns off every signal on the registered devices that wasn't registered. Call once after
+     * all subsystems are constructed; devices registered later are optimized as they arrive.
+     */
+    public void optimizeBusUtilization() {
+        for (int i = 0; i < devices.size(); i++) {
+            devices.get(i).optimizeBusUtilization();
+        }
+        optimized = true;
+    }
+
+    /** Refreshes every registered signal in one call. Call at the start of robotPeriodic. */
+    public void refreshAll() {
+        if (signals.length > 0) {
+            lastStatus = BaseStatusSignal.refreshAll(signals);
+        }
+    }
+
+    /** @return Status of the most recent refresh */
+    public StatusCode getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Publishes [latency, staleness, status] per signal, in milliseconds. Latency is the age of the
+     * value by its best timestamp (the device's own on a CANivore), staleness is the time since the
+     * roboRIO received it. On the rio bus the two are the same.
+     */
+    public void publishHealth() {
+        for (int i = 0; i < signals.length; i++) {
+            BaseStatusSignal signal = signals[i];
+            health[0] = signal.getTimestamp().getLatency() * 1000;
+            health[1] = signal.getAllTimestamps().getSystemTimestamp().getLatency() * 1000;
+            health[2] = signal.getStatus().value;
+            publishers.get(i).set(health);
+        }
+    }
+}
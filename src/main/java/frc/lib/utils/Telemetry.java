@@ -0,0 +1,231 @@
+package frc.lib.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.util.struct.Struct;
+import frc.lib.logging.AsyncLogger;
+
+/**
+ * Typed replacement for SmartDashboard string keys. Entries are declared once, which creates their
+ * publisher up front; setters only store a primitive or reference and mark the entry dirty, so they
+ * can be called every loop without hashing or boxing. {@link #flush()} publishes dirty entries:
+ * every high priority entry each flush, and low priority entries round robin, a fixed number per
+ * flush, so the cost of a flush doesn't grow with the number of entries. Every change is also
+ * handed to the {@link AsyncLogger} under Telemetry/, so the log sees values at the loop rate.
+ */
+public class Telemetry {
+    public enum Priority {
+        /** Published on every flush */
+        HIGH,
+        /** Published when its turn in the round robin comes up */
+        LOW
+    }
+
+    private static final String logPrefix = "Telemetry/";
+
+    private static Telemetry instance;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("");
+    private final AsyncLogger logger = AsyncLogger.getInstance();
+    private final List<Entry> highPriority = new ArrayList<>();
+    private final List<Entry> lowPriority = new ArrayList<>();
+    private int lowPriorityPerFlush;
+    private int nextLowPriority = 0;
+
+    private Telemetry(int lowPriorityPerFlush) {
+        this.lowPriorityPerFlush = lowPriorityPerFlush;
+    }
+
+    /**
+     * Gets the registry
+     *
+     * @return The shared registry
+     */
+    public static Telemetry getInstance() {
+        if (instance == null) {
+            instance = new Telemetry(8);
+        }
+        return instance;
+    }
+
+    /**
+     * @param count How many low priority entries each flush looks at
+     */
+    public void setLowPriorityPerFlush(int count) {
+        lowPriorityPerFlush = Math.max(1, count);
+    }
+
+    private <T extends Entry> T add(T entry, Priority priority) {
+        (priority == Priority.HIGH ? highPriority : lowPriority).add(entry);
+        return entry;
+    }
+
+    public DoubleEntry addDouble(String key, Priority priority) {
+        return add(new DoubleEntry(table.getDoubleTopic(key).publish(), logger, logger.addDouble(logPrefix + key)), priority);
+    }
+
+    public BooleanEntry addBoolean(String key, Priority priority) {
+        return add(new BooleanEntry(table.getBooleanTopic(key).publish(), logger, logger.addBoolean(logPrefix + key)), priority);
+    }
+
+    /**
+     * @param key
+     * @param struct Serializer, e.g. Pose2d.struct
+     * @param priority
+     */
+    public <T> StructEntry<T> addStruct(String key, Struct<T> struct, Priority priority) {
+        return add(new StructEntry<>(table.getStructTopic(key, struct).publish(), logger, logger.addStruct(logPrefix + key, struct)), priority);
+    }
+
+    /**
+     * @param key
+     * @param struct Serializer for the elements, e.g. SwerveModuleState.struct
+     * @param priority
+     */
+    public <T> StructArrayEntry<T> addStructArray(String key, Struct<T> struct, Priority priority) {
+        return add(new StructArrayEntry<>(table.getStructArrayTopic(key, struct).publish(), logger, logger.addStructArray(logPrefix + key, struct)), priority);
+    }
+
+    /** Publishes dirty entries. Run from the multi-rate scheduler at the telemetry rate. */
+    public void flush() {
+        for (int i = 0; i < highPriority.size(); i++) {
+            highPriority.get(i).flush();
+        }
+        int count = Math.min(lowPriorityPerFlush, lowPriority.size());
+        for (int i = 0; i < count; i++) {
+            if (nextLowPriority >= lowPriority.size()) {
+                nextLowPriority = 0;
+            }
+            lowPriority.get(nextLowPriority++).flush();
+        }
+    }
+
+    private abstract static class Entry {
+        protected final AsyncLogger logger;
+        protected final int logKey;
+        protected boolean dirty = true;
+
+        private Entry(AsyncLogger logger, int logKey) {
+            this.logger = logger;
+            this.logKey = logKey;
+        }
+
+        private void flush() {
+            if (dirty) {
+                dirty = false;
+                publish();
+            }
+        }
+
+        protected abstract void publish();
+    }
+
+    public static final class DoubleEntry extends Entry {
+        private final DoublePublisher publisher;
+        private double value;
+
+        private DoubleEntry(DoublePublisher publisher, AsyncLogger logger, int logKey) {
+            super(logger, logKey);
+            this.publisher = publisher;
+        }
+
+        public void set(double value) {
+            if (Double.compare(value, this.value) != 0) {
+                this.value = value;
+                dirty = true;
+                logger.logDouble(logKey, value);
+            }
+        }
+
+        @Override
+        protected void publish() {
+            publisher.set(value);
+        }
+    }
+
+    public static final class BooleanEntry extends Entry {
+        private final BooleanPublisher publisher;
+        private boolean value;
+
+        private BooleanEntry(BooleanPublisher publisher, AsyncLogger logger, int logKey) {
+            super(logger, logKey);
+            this.publisher = publisher;
+        }
+
+        public void set(boolean value) {
+            if (value != this.value) {
+                this.value = value;
+                dirty = true;
+                logger.logBoolean(logKey, value);
+            }
+        }
+
+        @Override
+        protected void publish() {
+            publisher.set(value);
+        }
+    }
+
+    /**
+     * Holds a reference to the latest value and serializes it into the publisher's reused buffer on
+     * flush, so the value must not be mutated afterwards. WPILib geometry is immutable, which is
+     * what this is meant for.
+     */
+    public static final class StructEntry<T> extends Entry {
+        private final StructPublisher<T> publisher;
+        private T value;
+
+        private StructEntry(StructPublisher<T> publisher, AsyncLogger logger, int logKey) {
+            super(logger, logKey);
+            this.publisher = publisher;
+        }
+
+        public void set(T value) {
+            if (value != this.value) {
+                this.value = value;
+                dirty = true;
+                logger.logObject(logKey, value);
+            }
+        }
+
+        @Override
+        protected void publish() {
+            if (value != null) {
+                publisher.set(value);
+            }
+        }
+    }
+
+    /** Like {@link StructEntry}; the array is kept by reference, so pass one that won't change */
+    public static final class StructArrayEntry<T> extends Entry {
+        private final StructArrayPublisher<T> publisher;
+        private T[] value;
+
+        private StructArrayEntry(StructArrayPublisher<T> publisher, AsyncLogger logger, int logKey) {
+            super(logger, logKey);
+            this.publisher = publisher;
+        }
+
+        public void set(T[] value) {
+            if (value != this.value) {
+                this.value = value;
+                dirty = true;
+                logger.logObject(logKey, value);
+            }
+        }
+
+        @Override
+        protected void publish() {
+            if (value != null) {
+                publisher.set(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package frc.lib.vision;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatOfPoint3f;
+import org.opencv.core.Point;
+import org.opencv.core.Point3;
+import org.opencv.imgproc.Imgproc;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagDetection;
+import edu.wpi.first.apriltag.AprilTagDetector;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.cscore.CvSink;
+import edu.wpi.first.math.MatBuilder;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Camera that finds AprilTags in frames from a cscore sink and solves the robot pose from every
+ * tag corner it sees at once, IPPE for a single tag and SQPnP across several. All of it runs in
+ * {@link #poll}, so on the worker's thread; the detector hands back new arrays every frame, which
+ * is why none of this belongs on the main loop.
+ */
+public class AprilTagVisionCamera implements VisionCamera {
+    private static final String tagFamily = "tag36h11";
+    private static final double tagSizeMeters = Units.inchesToMeters(6.5);
+    /** Longest wait for a frame before giving up until the next poll */
+    private static final double frameTimeoutSeconds = 0.1;
+    /** Detections with any corrected bits or a weaker margin than this are most often false */
+    private static final int maxHamming = 0;
+    private static final double minDecisionMargin = 30;
+
+    private final String name;
+    private final CvSink sink;
+    private final Transform3d cameraToRobot;
+    private final AprilTagDetector detector = new AprilTagDetector();
+    /** Field corners for each tag ID in detector order, null for IDs not on the field */
+    private final Point3[][] tagCorners;
+    private final Translation3d[] tagCenters;
+
+    private final Mat frame = new Mat();
+    private final Mat gray = new Mat();
+    private final Mat cameraMatrix = new Mat(3, 3, CvType.CV_64F);
+    private final MatOfDouble distortion;
+    private final MatOfPoint3f objectPoints = new MatOfPoint3f();
+    private final MatOfPoint2f imagePoints = new MatOfPoint2f();
+    private final Mat rotationVector = new Mat();
+    private final Mat translationVector = new Mat();
+    private final Mat rotationMatrix = new Mat();
+    private final double[] r = new double[9];
+    private final double[] t = new double[3];
+
+    /**
+     * @param name
+     * @param sink Frames from the camera
+     * @param intrinsics Focal lengths and optical center in pixels, {fx, fy, cx, cy}
+     * @param distortion OpenCV distortion coefficients, {k1, k2, p1, p2, k3}
+     * @param robotToCamera Camera mounting position
+     * @param layout Where each tag is on the field
+     */
+    public AprilTagVisionCamera(String name, CvSink sink, double[] intrinsics, double[] distortion,
+            Transform3d robotToCamera, AprilTagFieldLayout layout) {
+        this.name = name;
+        this.sink = sink;
+        cameraToRobot = robotToCamera.inverse();
+        detector.addFamily(tagFamily);
+        cameraMatrix.put(0, 0,
+            intrinsics[0], 0, intrinsics[2],
+            0, intrinsics[1], intrinsics[3],
+            0, 0, 1);
+        this.distortion = new MatOfDouble(distortion);
+
+        int maxId = 0;
+        for (AprilTag tag : layout.getTags()) {
+            maxId = Math.max(maxId, tag.ID);
+        }
+        tagCorners = new Point3[maxId + 1][];
+        tagCenters = new Translation3d[maxId + 1];
+        // Seen from the front of the tag, where its X axis points: bottom left, bottom right, top
+        // right, top left, the order the detector reports corners in
+        Translation3d[] offsets = {
+            new Translation3d(0, -tagSizeMeters / 2, -tagSizeMeters / 2),
+            new Translation3d(0, tagSizeMeters / 2, -tagSizeMeters / 2),
+            new Translation3d(0, tagSizeMeters / 2, tagSizeMeters / 2),
+            new Translation3d(0, -tagSizeMeters / 2, tagSizeMeters / 2)};
+        for (AprilTag tag : layout.getTags()) {
+            Point3[] corners = new Point3[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                Translation3d corner = tag.pose.getTranslation().plus(offsets[i].rotateBy(tag.pose.getRotation()));
+                corners[i] = new Point3(corner.getX(), corner.getY(), corner.getZ());
+            }
+            tagCorners[tag.ID] = corners;
+            tagCenters[tag.ID] = tag.pose.getTranslation();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean poll(VisionObservation observation) {
+        long frameTimeMicros = sink.grabFrame(frame, frameTimeoutSeconds);
+        if (frameTimeMicros == 0) {
+            return false;
+        }
+        if (frame.channels() == 1) {
+            frame.copyTo(gray);
+        } else {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+        }
+
+        AprilTagDetection[] detections = detector.detect(gray);
+        int count = 0;
+        for (AprilTagDetection detection : detections) {
+            if (isUsable(detection)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        Point3[] object = new Point3[count * 4];
+        Point[] image = new Point[count * 4];
+        int[] ids = new int[count];
+        int tag = 0;
+        for (AprilTagDetection detection : detections) {
+            if (!isUsable(detection)) {
+                continue;
+            }
+            Point3[] corners = tagCorners[detection.getId()];
+            for (int i = 0; i < 4; i++) {
+                object[tag * 4 + i] = corners[i];
+                image[tag * 4 + i] = new Point(detection.getCornerX(i), detection.getCornerY(i));
+            }
+            ids[tag++] = detection.getId();
+        }
+        objectPoints.fromArray(object);
+        imagePoints.fromArray(image);
+        // IPPE is exact for the four coplanar corners of one tag, SQPnP takes corners from any number
+        int method = count == 1 ? Calib3d.SOLVEPNP_IPPE : Calib3d.SOLVEPNP_SQPNP;
+        if (!Calib3d.solvePnP(objectPoints, imagePoints, cameraMatrix, distortion, rotationVector, translationVector, false, method)) {
+            return false;
+        }
+        Calib3d.Rodrigues(rotationVector, rotationMatrix);
+        rotationMatrix.get(0, 0, r);
+        translationVector.get(0, 0, t);
+
+        // solvePnP maps field points into the camera's frame, x right, y down and z out of the lens.
+        // The camera sits at -R^T t, and its forward, left and up axes on the field are R's third
+        // row and the negated first and second.
+        Translation3d cameraPosition = new Translation3d(
+            -(r[0] * t[0] + r[3] * t[1] + r[6] * t[2]),
+            -(r[1] * t[0] + r[4] * t[1] + r[7] * t[2]),
+            -(r[2] * t[0] + r[5] * t[1] + r[8] * t[2]));
+        Rotation3d cameraRotation = new Rotation3d(MatBuilder.fill(Nat.N3(), Nat.N3(),
+            r[6], -r[0], -r[3],
+            r[7], -r[1], -r[4],
+            r[8], -r[2], -r[5]));
+        Pose3d robotPose = new Pose3d(cameraPosition, cameraRotation).transformBy(cameraToRobot);
+
+        double totalDistance = 0;
+        for (int id : ids) {
+            totalDistance += cameraPosition.getDistance(tagCenters[id]);
+        }
+        observation.timestamp = frameTimeMicros / 1e6;
+        observation.x = robotPose.getX();
+        observation.y = robotPose.getY();
+        observation.theta = robotPose.getRotation().getZ();
+        observation.tagCount = count;
+        observation.averageTagDistance = totalDistance / count;
+        return true;
+    }
+
+    private boolean isUsable(AprilTagDetection detection) {
+        int id = detection.getId();
+        return id >= 0 && id < tagCorners.length && tagCorners[id] != null
+            && detection.getHamming() <= maxHamming
+            && detection.getDecisionMargin() >= minDecisionMargin;
+    }
+}
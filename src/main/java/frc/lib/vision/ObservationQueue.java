@@ -0,0 +1,56 @@
+package frc.lib.vision;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer queue of observations. Slots are preallocated and
+ * copied into and out of, so neither side allocates or blocks.
+ */
+public class ObservationQueue {
+    private final VisionObservation[] slots;
+    /** Next slot to read, only advanced by the consumer */
+    private final AtomicLong head = new AtomicLong();
+    /** Next slot to write, only advanced by the producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    public ObservationQueue(int capacity) {
+        slots = new VisionObservation[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new VisionObservation();
+        }
+    }
+
+    /**
+     * Copies an observation in. Producer thread only.
+     *
+     * @return False if the queue was full and the observation was dropped
+     */
+    public boolean offer(VisionObservation observation) {
+        long t = tail.get();
+        if (t - head.get() >= slots.length) {
+            return false;
+        }
+        slots[(int) (t % slots.length)].set(observation);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Copies the oldest observation out. Consumer thread only.
+     *
+     * @return False if the queue was empty
+     */
+    public boolean poll(VisionObservation observation) {
+        long h = head.get();
+        if (h >= tail.get()) {
+            return false;
+        }
+        observation.set(slots[(int) (h % slots.length)]);
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
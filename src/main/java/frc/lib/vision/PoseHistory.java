@@ -0,0 +1,111 @@
+package frc.lib.vision;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * Fixed capacity ring buffer of timestamped odometry poses. Lets vision results be compared with
+ * where odometry thought the robot was when the frame was captured, without allocating.
+ */
+public class PoseHistory {
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] thetas;
+    private int head = 0;
+    private int size = 0;
+
+    private double sampleX;
+    private double sampleY;
+    private double sampleTheta;
+
+    /**
+     * @param capacity Number of poses kept, e.g. 100 covers two seconds at 50 Hz
+     */
+    public PoseHistory(int capacity) {
+        timestamps = new double[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        thetas = new double[capacity];
+    }
+
+    /**
+     * Adds a pose. Timestamps must be increasing; older ones are ignored.
+     *
+     * @param timestamp FPGA time in seconds
+     * @param pose Odometry pose at that time
+     */
+    public void add(double timestamp, Pose2d pose) {
+        if (size > 0 && timestamp <= timestamps[index(size - 1)]) {
+            return;
+        }
+        int i = (head + size) % timestamps.length;
+        timestamps[i] = timestamp;
+        xs[i] = pose.getX();
+        ys[i] = pose.getY();
+        thetas[i] = pose.getRotation().getRadians();
+        if (size < timestamps.length) {
+            size++;
+        } else {
+            head = (head + 1) % timestamps.length;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Interpolates the pose at a timestamp. Read the result with {@link #getSampleX()},
+     * {@link #getSampleY()} and {@link #getSampleTheta()}.
+     *
+     * @param timestamp FPGA time in seconds
+     * @return False if the timestamp is outside the buffered window
+     */
+    public boolean sample(double timestamp) {
+        if (size == 0 || timestamp < timestamps[head] || timestamp > timestamps[index(size - 1)]) {
+            return false;
+        }
+        // Binary search for the first entry at or after the timestamp
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[index(mid)] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int after = index(low);
+        if (low == 0) {
+            sampleX = xs[after];
+            sampleY = ys[after];
+            sampleTheta = thetas[after];
+            return true;
+        }
+        int before = index(low - 1);
+        double t = (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+        sampleX = MathUtil.interpolate(xs[before], xs[after], t);
+        sampleY = MathUtil.interpolate(ys[before], ys[after], t);
+        sampleTheta = thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * t;
+        return true;
+    }
+
+    public double getSampleX() {
+        return sampleX;
+    }
+
+    public double getSampleY() {
+        return sampleY;
+    }
+
+    public double getSampleTheta() {
+        return sampleTheta;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % timestamps.length;
+    }
+}
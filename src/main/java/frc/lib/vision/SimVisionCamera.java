@@ -0,0 +1,103 @@
+package frc.lib.vision;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Camera that sees the tags in front of it from the robot's true pose and reports a noisy, delayed
+ * pose estimate. Noise grows with distance and shrinks with tag count like a real solver.
+ */
+public class SimVisionCamera implements VisionCamera {
+    private static final double fieldOfViewRadians = Units.degreesToRadians(70);
+    private static final double maxRangeMeters = 5.0;
+    private static final double latencySeconds = 0.03;
+    private static final double noisePerMeterSquared = 0.01;
+
+    private final String name;
+    private final Supplier<Pose2d> truePose;
+    private final double cameraX;
+    private final double cameraY;
+    private final double cameraYaw;
+    private final double[] tagXs;
+    private final double[] tagYs;
+    private final double[] tagYaws;
+    private final Random random = new Random(0);
+
+    /**
+     * @param name
+     * @param robotToCamera Camera mounting position
+     * @param layout Tags the camera can see
+     * @param truePose Ground truth robot pose
+     */
+    public SimVisionCamera(String name, Transform3d robotToCamera, AprilTagFieldLayout layout, Supplier<Pose2d> truePose) {
+        this.name = name;
+        this.truePose = truePose;
+        cameraX = robotToCamera.getX();
+        cameraY = robotToCamera.getY();
+        cameraYaw = robotToCamera.getRotation().getZ();
+
+        var tags = layout.getTags();
+        tagXs = new double[tags.size()];
+        tagYs = new double[tags.size()];
+        tagYaws = new double[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            AprilTag tag = tags.get(i);
+            tagXs[i] = tag.pose.getX();
+            tagYs[i] = tag.pose.getY();
+            tagYaws[i] = tag.pose.getRotation().getZ();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean poll(VisionObservation observation) {
+        Pose2d pose = truePose.get();
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+        double camX = pose.getX() + cameraX * cos - cameraY * sin;
+        double camY = pose.getY() + cameraX * sin + cameraY * cos;
+        double camYaw = pose.getRotation().getRadians() + cameraYaw;
+
+        int count = 0;
+        double totalDistance = 0;
+        for (int i = 0; i < tagXs.length; i++) {
+            double dx = tagXs[i] - camX;
+            double dy = tagYs[i] - camY;
+            double distance = Math.hypot(dx, dy);
+            double bearing = Math.atan2(dy, dx);
+            // The tag has to be in range, inside the field of view and facing the camera
+            if (distance > maxRangeMeters
+                || Math.abs(MathUtil.angleModulus(bearing - camYaw)) > fieldOfViewRadians / 2
+                || Math.abs(MathUtil.angleModulus(bearing + Math.PI - tagYaws[i])) > Math.PI / 2) {
+                continue;
+            }
+            count++;
+            totalDistance += distance;
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        double averageDistance = totalDistance / count;
+        double noise = noisePerMeterSquared * averageDistance * averageDistance / count;
+        observation.timestamp = Timer.getFPGATimestamp() - latencySeconds;
+        observation.x = pose.getX() + random.nextGaussian() * noise;
+        observation.y = pose.getY() + random.nextGaussian() * noise;
+        observation.theta = pose.getRotation().getRadians() + random.nextGaussian() * noise;
+        observation.tagCount = count;
+        observation.averageTagDistance = averageDistance;
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package frc.lib.vision;
+
+/** A camera that produces robot pose estimates from AprilTags */
+public interface VisionCamera {
+    String getName();
+
+    /**
+     * Fills in the newest result if there is one that has not been returned yet.
+     *
+     * @param observation Filled in place
+     * @return True if a new result was written
+     */
+    boolean poll(VisionObservation observation);
+}
@@ -0,0 +1,103 @@
+package frc.lib.vision;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.Vision;
+
+/**
+ * Filters camera observations against recorded odometry and forwards the good ones to the pose
+ * estimator with standard deviations scaled by tag count and distance.
+ */
+public class VisionFusion {
+    /** Receives accepted measurements, e.g. Drive::addVisionMeasurement */
+    @FunctionalInterface
+    public interface MeasurementConsumer {
+        void accept(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs);
+    }
+
+    private final PoseHistory history = new PoseHistory(Vision.poseHistoryCapacity);
+    private final MeasurementConsumer consumer;
+    /** Reused for every measurement; the pose estimator reads it immediately */
+    private final Matrix<N3, N1> stdDevs = VecBuilder.fill(0, 0, 0);
+
+    private int accepted = 0;
+    private int rejected = 0;
+
+    public VisionFusion(MeasurementConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /** Records an odometry pose to check later observations against */
+    public void addOdometry(double timestamp, Pose2d pose) {
+        history.add(timestamp, pose);
+    }
+
+    /**
+     * Checks an observation and submits it if it is plausible.
+     *
+     * @return True if the measurement was submitted
+     */
+    public boolean process(VisionObservation observation) {
+        if (!isValid(observation)) {
+            rejected++;
+            return false;
+        }
+
+        double distanceSquared = observation.averageTagDistance * observation.averageTagDistance;
+        double xyStdDev = Vision.xyStdDevBase * distanceSquared / observation.tagCount;
+        // A single tag gives a poor heading, let the gyro own it
+        double thetaStdDev = observation.tagCount > 1
+            ? Vision.thetaStdDevBase * distanceSquared / observation.tagCount
+            : Double.MAX_VALUE;
+        stdDevs.set(0, 0, xyStdDev);
+        stdDevs.set(1, 0, xyStdDev);
+        stdDevs.set(2, 0, thetaStdDev);
+
+        consumer.accept(new Pose2d(observation.x, observation.y, new Rotation2d(observation.theta)),
+            observation.timestamp, stdDevs);
+        accepted++;
+        return true;
+    }
+
+    /**
+     * Checks that only need the observation itself, so they are safe to run on a camera thread
+     * before the result is handed to the main loop.
+     */
+    public static boolean isPlausible(VisionObservation observation) {
+        if (observation.tagCount == 0
+            || (observation.tagCount == 1 && observation.averageTagDistance > Vision.maxSingleTagDistanceMeters)) {
+            return false;
+        }
+        return observation.x >= 0 && observation.x <= FieldConstants.kFieldLength.in(Meters)
+            && observation.y >= 0 && observation.y <= FieldConstants.kFieldWidth.in(Meters);
+    }
+
+    private boolean isValid(VisionObservation observation) {
+        if (!isPlausible(observation)) {
+            return false;
+        }
+        // Without odometry to compare against there is nothing more to check
+        if (!history.sample(observation.timestamp)) {
+            return true;
+        }
+        double translationError = Math.hypot(observation.x - history.getSampleX(), observation.y - history.getSampleY());
+        double rotationError = Math.abs(MathUtil.angleModulus(observation.theta - history.getSampleTheta()));
+        return translationError <= Vision.maxTranslationErrorMeters && rotationError <= Vision.maxRotationErrorRadians;
+    }
+
+    public int getAcceptedCount() {
+        return accepted;
+    }
+
+    public int getRejectedCount() {
+        return rejected;
+    }
+}
@@ -0,0 +1,26 @@
+package frc.lib.vision;
+
+/**
+ * A single robot pose estimate from a camera frame. Instances are reused frame to frame, so copy
+ * out anything that needs to outlive the current call.
+ */
+public class VisionObservation {
+    /** FPGA time in seconds when the frame was captured */
+    public double timestamp;
+    public double x;
+    public double y;
+    /** Radians */
+    public double theta;
+    public int tagCount;
+    /** Meters from the camera to the tags, averaged */
+    public double averageTagDistance;
+
+    public void set(VisionObservation other) {
+        timestamp = other.timestamp;
+        x = other.x;
+        y = other.y;
+        theta = other.theta;
+        tagCount = other.tagCount;
+        averageTagDistance = other.averageTagDistance;
+    }
+}
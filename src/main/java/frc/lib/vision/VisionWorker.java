@@ -0,0 +1,70 @@
+package frc.lib.vision;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+/**
+ * Polls one camera on its own Notifier thread, drops implausible results there and queues the
+ * rest for the main loop.
+ */
+public class VisionWorker {
+    private final VisionCamera camera;
+    private final ObservationQueue queue;
+    private final Notifier notifier;
+    private final VisionObservation scratch = new VisionObservation();
+    private volatile int droppedFrames = 0;
+    private volatile int rejectedFrames = 0;
+
+    /**
+     * @param camera
+     * @param queueCapacity Results held before new ones are dropped
+     */
+    public VisionWorker(VisionCamera camera, int queueCapacity) {
+        this.camera = camera;
+        queue = new ObservationQueue(queueCapacity);
+        notifier = new Notifier(this::pollCamera);
+        notifier.setName("Vision " + camera.getName());
+    }
+
+    /** @param periodSeconds How often to poll the camera */
+    public void start(double periodSeconds) {
+        notifier.startPeriodic(periodSeconds);
+    }
+
+    public void stop() {
+        notifier.stop();
+    }
+
+    private void pollCamera() {
+        if (!camera.poll(scratch)) {
+            return;
+        }
+        if (!VisionFusion.isPlausible(scratch)) {
+            rejectedFrames++;
+        } else if (!queue.offer(scratch)) {
+            droppedFrames++;
+        }
+    }
+
+    public String getName() {
+        return camera.getName();
+    }
+
+    /** Consumer side of the queue, main loop only */
+    public boolean poll(VisionObservation observation) {
+        return queue.poll(observation);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** @return Results lost because the main loop let the queue fill up */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /** @return Results thrown out on this thread for failing {@link VisionFusion#isPlausible} */
+    public int getRejectedFrames() {
+        return rejectedFrames;
+    }
+}
@@ -19,15 +19,19 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Transform3d;
 
 //Kinematics
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.system.plant.DCMotor;
 
 //Units and stuff
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.Distance;
 import edu.wpi.first.units.Measure;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 
 //Swerves and utils
 import frc.lib.swerve.SwerveModuleConstants;
@@ -36,6 +40,85 @@ import frc.lib.utils.AllianceFlipUtil;
 import frc.robot.generated.TunerConstants;
 
 public final class Constants{
+  public static final class LoopConstants{
+    /** Dashboard values don't need to go out every loop */
+    public static final double telemetryRateHz = 10;
+    /** Low priority telemetry entries published per flush, round robin */
+    public static final int telemetryLowPriorityPerFlush = 8;
+  }
+
+  public enum Mode{
+    /** Running on the robot */
+    REAL,
+    /** Simulated hardware */
+    SIM,
+    /** Simulation fed from a recorded log */
+    REPLAY
+  }
+
+  public static final class ModeConstants{
+    /** Log to replay instead of simulating, set with the REPLAY_LOG environment variable */
+    public static final String replayLogPath = System.getenv("REPLAY_LOG");
+    public static final Mode mode = RobotBase.isReal() ? Mode.REAL : replayLogPath != null ? Mode.REPLAY : Mode.SIM;
+    /**
+     * Autos to run headless in simulation, comma separated chooser names or "all" for every
+     * PathPlanner auto, set with the AUTO_SIM environment variable
+     */
+    public static final String autoSimSelection = System.getenv("AUTO_SIM");
+    /** File a headless auto run appends its results to, set by a batch through AUTO_SIM_RESULT */
+    public static final String autoSimResultPath = System.getenv("AUTO_SIM_RESULT");
+    /** Runs the auto batch instead of the robot, set with the AUTO_SIM_BATCH environment variable */
+    public static final boolean autoSimBatch = System.getenv("AUTO_SIM_BATCH") != null;
+  }
+
+  public static final class SimConstants{
+    /** Mechanism physics update rate, several steps per main loop */
+    public static final double physicsRateHz = 200;
+    /** Unloaded battery voltage, and battery plus wiring resistance the load sags it through */
+    public static final double batteryNominalVolts = 12;
+    public static final double batteryResistanceOhms = 0.02;
+    /**
+     * The robot really travels this fraction further than its wheels report, like worn tread or
+     * slip, so odometry drifts from the pose the simulated cameras see and vision has something to correct
+     */
+    public static final double odometryDriftFraction = 0.03;
+  }
+
+  public static final class AutoSimConstants{
+    /** Long enough for the chooser to pick up the selection and the preloader to build it */
+    public static final double disabledSeconds = 0.5;
+    public static final double autoSeconds = 15;
+
+    /** Every auto runs on every alliance, from every start offset, at every battery voltage */
+    public static final Alliance[] batchAlliances = {Alliance.Blue, Alliance.Red};
+    /** Placement errors, robot relative. They move the simulated true pose, not the estimate. */
+    public static final Transform2d[] batchStartOffsets = {
+      new Transform2d(),
+      new Transform2d(0.1, 0, new Rotation2d()),
+      new Transform2d(-0.1, 0, new Rotation2d()),
+      new Transform2d(0, 0.1, new Rotation2d()),
+      new Transform2d(0, -0.1, new Rotation2d()),
+      new Transform2d(0, 0, Rotation2d.fromDegrees(5)),
+      new Transform2d(0, 0, Rotation2d.fromDegrees(-5))
+    };
+    public static final double[] batchBatteryVolts = {12.5, 11.5, 10.5};
+    /** A run is killed and counted as failed after this much wall time */
+    public static final double batchRunTimeoutSeconds = 120;
+    public static final String batchOutputDirectory = "build/autosim";
+  }
+
+  public static final class LoggingConstants{
+    /** Records the logger can hold before it starts dropping, about 16 loops' worth at worst */
+    public static final int queueCapacity = 16384;
+    public static final double drainPeriodSeconds = 0.01;
+    /**
+     * Entries the replay check doesn't compare, besides the replayed inputs: loop timing, durations
+     * measured on the clock, CAN bus health and the simulated battery don't come from inputs
+     */
+    public static final String[] replayUncheckedPrefixes = {"Loop/", "Telemetry/CAN/", "Telemetry/Sim/",
+        "Telemetry/Flywheel/SpinUpMs", "Telemetry/Flywheel/RecoveryMs", "Telemetry/Shooter/", "systemTime", "messages"};
+  }
+
   public static final class SwerveConstants{
     public static final int pigeonID = 1;
     public static final boolean invertGyro = true; //Always make sure Gyro is CCW+ CW-
@@ -117,10 +200,17 @@ public final class Constants{
     public static final double maxVelocityMPS = TunerConstants.kSpeedAt12VoltsMps;//Must be tuned to specific robot
     public static final double maxModuleVelocityMPS = maxVelocityMPS;
     public static final double maxModuleAccelerationMPSSq = 2.0; //Must be tuned to specific robot
+    /**Limits the drive setpoint generator applies per module, the driver's old slew limits: braking harder than speeding up */
+    public static final double setpointAccelerationMPSSq = 5.0;//Must be tuned to specific robot
+    public static final double setpointDecelerationMPSSq = 10.0;//Must be tuned to specific robot
 
     /**Radians per Second */
     public static final double maxAngularVelocityRPS = 10.0;//Must be tuned to specific robot
     public static final double maxAngularAccelerationRPSSq = 5.0;//Must be tuned to specific robot
+    public static final double maxModuleSteerVelocityRPS = 20.0;//Must be tuned to specific robot
+
+    /**Setpoint generator restarts from the measured state after this long without a setpoint */
+    public static final double setpointTimeoutSeconds = 0.1;
 
     public static final double slipCurrent = 300;
     public static final double steerInertia = TunerConstants.kSteerInertia;
@@ -131,6 +221,11 @@ public final class Constants{
     public static final Translation2d[] modulePositions = { Mod0.position, Mod1.position, Mod2.position,
         Mod3.position };
 
+    /**Heading controller used when driving at a target angle */
+    public static final double headingKP = 5.0;//Must be tuned to specific robot
+    public static final double headingKI = 0;
+    public static final double headingKD = 0;
+
     /**PID Constants */
     public static final PIDConstants translationalPID = new PIDConstants(driveKP, driveKI, driveKD);
     public static final PIDConstants rotationalPID = new PIDConstants(angleKP, angleKI, angleKD);
@@ -182,6 +277,12 @@ public final class Constants{
       public static final Translation2d position = new Translation2d(-driveBaseRadiusMeter/2.0,-wheelBase/2.0);// -x,-y
     }
   
+    /** Odometry signals on the rio bus; the pigeon pitch is only for the dashboard */
+    public static final double odometryFrequencyHz = 100;
+    public static final double pigeonTelemetryHz = 10;
+    /** No bus to budget in simulation; faster so stepped time waits less on the odometry thread */
+    public static final double simOdometryFrequencyHz = 250;
+
     public static final PathConstraints pathConstraints = new PathConstraints(maxVelocityMPS, maxModuleAccelerationMPSSq, maxAngularVelocityRPS, maxAngularAccelerationRPSSq);
   }
 
@@ -211,13 +312,51 @@ public final class Constants{
   }
 
   public static final class ShooterConstants{
+    /** Longest we wait for the flywheel and arm before giving up on the shot */
+    public static final double readyTimeoutSeconds = 2.0;
+    /** Longest we feed without seeing the note leave */
+    public static final double feedTimeoutSeconds = 1.0;
+    /** How long the sensor has to read empty before the note counts as gone */
+    public static final double noteExitDebounceSeconds = 0.1;
     public static final class FlywheelConstants{
       public static final int shooterLeft = 10;
       public static final int shooterRight = 11;
       public static final double shooterOutSpeedRPM = 1500;
-      public static final double kS = 0.3;
-      public static final double kV = 1.5;
-      public static final double kA = 0.2;
+      /** NEO free speed at 12 V, used to turn an RPM into an open loop output */
+      public static final double freeSpeedRPM = 5676;
+      /**
+       * Feedforward with velocity in RPM: kS in volts, kV in volts per RPM, kA in volts per RPM per
+       * second. kV comes from the NEO's free speed on the direct drive wheel until the flywheel is
+       * characterized; only steady speeds are requested, so kA is unused.
+       */
+      public static final double kS = 0.1;
+      public static final double kV = 12.0 / freeSpeedRPM;
+      public static final double kA = 0;
+      /** Onboard SPARK MAX velocity loop, duty cycle per RPM of error. Must be tuned to specific robot */
+      public static final double kP = 0.0002;
+      public static final double kI = 0;
+      public static final double kD = 0;
+      public static final double rpmTolerance = 150;
+      /** SPARK MAX smart current limit, per motor */
+      public static final int currentLimitAmps = 30;
+      /** True runs the velocity loop on the SPARK MAX, false runs bang-bang on the roboRIO fast loop */
+      public static final boolean onboardVelocityControl = true;
+      /** roboRIO bang-bang loop period, 200 Hz */
+      public static final double fastLoopPeriodSeconds = 0.005;
+      /** Fraction of the feedforward applied under bang-bang, so it can't hold speed by itself */
+      public static final double bangBangFeedforwardScale = 0.9;
+      /** NEO velocity filtering, shorter than the 32 ms / 8 sample default so the fast loop sees changes sooner */
+      public static final int encoderMeasurementPeriodMs = 8;
+      public static final int encoderAverageDepth = 2;
+      /**
+       * SPARK MAX status frame periods in ms, indexed by frame number. Frame 0 carries the output the
+       * follower copies and frame 1 carries velocity; nothing reads the rest (position, analog,
+       * alternate and absolute encoders), so they are slowed way down.
+       */
+      public static final int[] leaderFramePeriodsMs = {10, 20, 500, 500, 500, 500, 500};
+      public static final int[] followerFramePeriodsMs = {100, 500, 500, 500, 500, 500, 500};
+      /** Simulation only, two 4 in wheels plus shaft, estimated */
+      public static final double simMoiKgMetersSquared = 0.002;
     }
   
     public static final class ArmConstants{
@@ -231,13 +370,59 @@ public final class Constants{
       public static final double kI = 0;
       public static final double kD = 0.2;
       public static final double kS = 0.5;
-      public static final double kV = 0.5;
       public static final double kG = 0.7;
       public static final int armLeaderId = 9;
       public static final int armFollowerId = 8;
       public static final int throuhBoreEncoderPort = 9;
       // Degrees Per Second
       public static final double armSpeed = 10;
+      public static final double atTargetToleranceRadians = Units.degreesToRadians(0.5);
+      /** Motor rotations per arm rotation. Must be tuned to specific robot */
+      public static final double gearRatio = 100;
+      /** Falcon 500 free speed at 12 V, motor rotations per second */
+      public static final double motorFreeSpeedRps = 6380.0 / 60;
+      /**
+       * Volts per arm rotation per second. Comes from the Falcon's free speed through the gearing
+       * until the arm is characterized.
+       */
+      public static final double kV = 12.0 / (motorFreeSpeedRps / gearRatio);
+      /** Motion Magic limits, arm rotations per second (squared) */
+      public static final double cruiseVelocity = 0.5;
+      public static final double acceleration = 1.0;
+      /** Reseed the motor from the through-bore when they disagree by more than this while still */
+      public static final double resyncThresholdRadians = Units.degreesToRadians(2);
+      public static final double resyncMaxVelocityRadiansPerSec = Units.degreesToRadians(5);
+      public static final double resyncMinIntervalSeconds = 1.0;
+      /**
+       * Rate the target is sent to the motor and drift is checked. The inputs this reads are only
+       * refreshed once per main loop and Motion Magic closes the loop on the TalonFX, so running it
+       * faster would only resend the same target against the same readings.
+       */
+      public static final double controlRateHz = 50;
+      /** Status signal rates. Faster than the loop so the refreshed position is at most 10 ms old. */
+      public static final double positionSignalHz = 100;
+      public static final double currentSignalHz = 50;
+      /**
+       * Simulation only, estimates rather than measurements. The mass is what kG holds level, so the
+       * model and the gravity term agree.
+       */
+      public static final double simLengthMeters = 0.5;
+      private static final DCMotor simMotor = DCMotor.getFalcon500(1);
+      public static final double simMassKg = kG / simMotor.rOhms * simMotor.KtNMPerAmp * gearRatio / (9.81 * simLengthMeters / 2);
+    }
+
+    public static final class ShotMapConstants{
+      /** In the deploy directory */
+      public static final String fileName = "shotmap.csv";
+      public static final double resolutionMeters = 0.05;
+      /** Used when the file can't be loaded */
+      public static final double[] distancesMeters = {1.3, 2.0, 3.0, 4.0, 5.0};
+      public static final double[] armDegrees = {45, 35, 26, 19, 15};
+      public static final double[] flywheelRPM = {3000, 3500, 4000, 4500, 5000};
+      /** Average horizontal note speed, used for time of flight when shooting on the move */
+      public static final double noteVelocityMetersPerSecond = 12.0;
+      public static final int solverIterations = 5;
+      public static final double solverToleranceMeters = 0.01;
     }
 
     public static final class RollerConstants{
@@ -248,6 +433,13 @@ public final class Constants{
       public static final int rollerID = 9;
       public static final int tofId = 0;
       public static final double tofThreshold = Units.inchesToMeters(17) * 1000;
+      /**
+       * Simulation only: note speed at full output, and how far in from the intake side the sensor
+       * starts seeing it and the flywheel takes it
+       */
+      public static final double simSurfaceSpeedMetersPerSecond = 4;
+      public static final double simSensorPositionMeters = 0.15;
+      public static final double simFlywheelPositionMeters = 0.4;
     }
   }
 
@@ -307,5 +499,30 @@ public final class Constants{
     public static final AprilTagFieldLayout fieldLayout = AprilTagFields.k2024Crescendo.loadAprilTagLayoutField();
     public static final Transform3d frontLeftCamTransform = new Transform3d();
     public static final Transform3d frontRightCamTransform = new Transform3d();
+    /** USB ports of the cameras on the roboRIO */
+    public static final int frontLeftCamDevice = 0;
+    public static final int frontRightCamDevice = 1;
+    public static final int cameraWidthPixels = 640;
+    public static final int cameraHeightPixels = 480;
+    /**
+     * {fx, fy, cx, cy} in pixels, an ideal 70 degree lens at 640x480 until the cameras are
+     * calibrated, and the distortion that goes with it
+     */
+    public static final double[] cameraIntrinsics = {457, 457, 320, 240};
+    public static final double[] cameraDistortion = {0, 0, 0, 0, 0};
+
+    /** Odometry poses kept for checking vision results, 2 seconds at 50 Hz */
+    public static final int poseHistoryCapacity = 100;
+    /** Each camera is polled on its own thread at this rate */
+    public static final double cameraPeriodSeconds = 0.02;
+    /** Results buffered per camera before new ones are dropped */
+    public static final int cameraQueueCapacity = 8;
+    /** Results further than this from odometry at capture time are thrown out */
+    public static final double maxTranslationErrorMeters = 1.0;
+    public static final double maxRotationErrorRadians = Units.degreesToRadians(30);
+    public static final double maxSingleTagDistanceMeters = 4.0;
+    /** Standard deviations at 1 meter from one tag, scaled by distance squared over tag count */
+    public static final double xyStdDevBase = 0.02;
+    public static final double thetaStdDevBase = 0.05;
   }
 }
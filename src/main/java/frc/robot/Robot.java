@@ -4,26 +4,65 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Supplier;
 
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import frc.lib.logging.AsyncLogger;
+import frc.lib.logging.DriverStationInputs;
+import frc.lib.logging.LogReplay;
+import frc.lib.sim.AutoSimBatch;
+import frc.lib.sim.AutoSimRunner;
+import frc.lib.sim.AutoSimScenario;
+import frc.lib.sim.PhysicsSim;
+import frc.lib.sim.SteppedSimulation;
 import frc.lib.swerve.SwerveConfig;
+import frc.lib.swerve.SwerveIO;
+import frc.lib.swerve.SwerveIOReal;
+import frc.lib.swerve.SwerveIOSim;
+import frc.lib.utils.AutoPreloader;
+import frc.lib.utils.CanBudget;
+import frc.lib.utils.LoopProfiler;
+import frc.lib.utils.MultiRateScheduler;
+import frc.lib.utils.SignalRegistry;
+import frc.lib.utils.Telemetry;
 import frc.lib.utils.PathPlannerUtil;
+import frc.robot.Constants.AutoSimConstants;
 import frc.robot.Constants.DriverConstants;
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.Constants.LoopConstants;
+import frc.robot.Constants.ModeConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.commands.AimAtSpeaker;
 import frc.robot.generated.TunerConstants;
 import frc.robot.io.DriverControls;
 import frc.robot.io.OperatorControls;
 import frc.robot.subsystems.Drive;
 import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Vision;
+import frc.robot.subsystems.shooter.ArmIO;
+import frc.robot.subsystems.shooter.ArmIOReal;
+import frc.robot.subsystems.shooter.ArmIOSim;
+import frc.robot.subsystems.shooter.FlywheelIO;
+import frc.robot.subsystems.shooter.FlywheelIOReal;
+import frc.robot.subsystems.shooter.FlywheelIOSim;
+import frc.robot.subsystems.shooter.RollersIO;
+import frc.robot.subsystems.shooter.RollersIOReal;
+import frc.robot.subsystems.shooter.RollersIOSim;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -32,12 +71,29 @@ import frc.robot.subsystems.Shooter;
  * project.
  */
 public class Robot extends TimedRobot {
+  private static final String autoChooserKey = "Auto Chooser";
+
   private Drive drive;
   private Shooter shooter;
+  private Vision vision;
   private DriverControls driverControls;
   private OperatorControls operatorControls;
   private Command m_autonomousCommand;
   private final SendableChooser<Supplier<Command>> autoChooser = new SendableChooser<>(); 
+  private final AutoPreloader autoPreloader = new AutoPreloader(autoChooser);
+  private AutoSimRunner autoSim;
+  /** Null unless simulating */
+  private SwerveIOSim swerveSim;
+  /** Created first so the main thread owns it */
+  private final AsyncLogger logger = AsyncLogger.getInstance();
+  private final int loopTimeKey = logger.addInteger("Loop/DurationMicros");
+  /** Marks the start of each loop in the log, which is what replay steps by */
+  private final int cycleKey = logger.addInteger(LogReplay.cycleKey);
+  private long cycle = 0;
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final int schedulerSection = profiler.register("CommandScheduler.run()");
+  private final int triggerSection = profiler.register("Triggers.poll()");
+  private final int signalSection = profiler.register("Signals.refreshAll()");
 
   
 
@@ -49,8 +105,35 @@ public class Robot extends TimedRobot {
   public void robotInit() {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
+    if (ModeConstants.mode == Constants.Mode.SIM && ModeConstants.autoSimBatch) {
+      runAutoSimBatch();
+      return;
+    }
+    if (ModeConstants.mode == Constants.Mode.REPLAY) {
+      try {
+        LogReplay.start(ModeConstants.replayLogPath);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read replay log " + ModeConstants.replayLogPath, e);
+      }
+    }
     configureSubsystems();
-
+    profiler.profileCommands(CommandScheduler.getInstance());
+    logger.logCommands(CommandScheduler.getInstance());
+    DriverStationInputs.getInstance().setJoysticks(DriverConstants.driverPort, DriverConstants.operatorPort);
+    MultiRateScheduler.getInstance().start(this);
+    SignalRegistry.getInstance().optimizeBusUtilization();
+    MultiRateScheduler.getInstance().addPeriodic("Signals.publishHealth()", SignalRegistry.getInstance()::publishHealth, LoopConstants.telemetryRateHz);
+    MultiRateScheduler.getInstance().addPeriodic("CanBudget.publish()", CanBudget.getInstance()::publish, LoopConstants.telemetryRateHz);
+    Telemetry.getInstance().setLowPriorityPerFlush(LoopConstants.telemetryLowPriorityPerFlush);
+    MultiRateScheduler.getInstance().addPeriodic("Telemetry.flush()", Telemetry.getInstance()::flush, LoopConstants.telemetryRateHz);
+    MultiRateScheduler.getInstance().addPeriodic("Logger.publishStats()", logger::publishStats, LoopConstants.telemetryRateHz);
+    if (ModeConstants.mode == Constants.Mode.SIM) {
+      MultiRateScheduler.getInstance().addPeriodic("Physics.update()", PhysicsSim.getInstance()::update, SimConstants.physicsRateHz);
+    }
+    if (ModeConstants.mode == Constants.Mode.SIM && ModeConstants.autoSimSelection != null) {
+      startAutoSim();
+    }
+    startStepping();
   }
 
   /**
@@ -66,12 +149,109 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    profiler.startLoop();
+    logger.logInteger(cycleKey, ++cycle);
+    DriverStationInputs.getInstance().periodic();
+    profiler.start(signalSection);
+    SignalRegistry.getInstance().refreshAll();
+    profiler.stop(signalSection);
+    profiler.start(schedulerSection);
     CommandScheduler.getInstance().run();
+    profiler.stop(schedulerSection);
+    MultiRateScheduler.getInstance().run();
+    profiler.endLoop();
+    logger.logInteger(loopTimeKey, profiler.getLastLoopMicros());
+  }
+
+  /**
+   * For replay and headless auto runs, loads the first loop's inputs and hands the paused clock to
+   * a thread that steps it one loop at a time
+   */
+  private void startStepping() {
+    if (LogReplay.getInstance() == null && autoSim == null) {
+      return;
+    }
+    if (!advanceReplay()) {
+      finishSimulation();
+      return;
+    }
+    new SteppedSimulation(kDefaultPeriod, this::betweenLoops, this::finishSimulation).start();
+  }
+
+  /** Runs on the stepping thread after every loop, while the robot loop is parked */
+  private boolean betweenLoops() {
+    return advanceReplay() && (autoSim == null || autoSim.step());
+  }
+
+  /**
+   * When replaying, loads the next loop's inputs
+   * @return False once the log has run out
+   */
+  private boolean advanceReplay() {
+    LogReplay replay = LogReplay.getInstance();
+    if (replay != null && !replay.advance()) {
+      replay.reportFinished();
+      return false;
+    }
+    return true;
+  }
+
+  /** Runs the autos named by AUTO_SIM headless and faster than real time, then exits */
+  private void startAutoSim() {
+    List<String> autos = ModeConstants.autoSimSelection.equals("all")
+      ? PathPlannerUtil.getAutos()
+      : Arrays.stream(ModeConstants.autoSimSelection.split(",")).map(String::trim).toList();
+    autoSim = new AutoSimRunner(autoChooserKey, autos, AutoSimScenario.fromEnvironment(System.getenv()),
+      drive::getPose, swerveSim::getTruePose, drive::resetPose, swerveSim::setPlacementError,
+      kDefaultPeriod, AutoSimConstants.disabledSeconds, AutoSimConstants.autoSeconds,
+      ModeConstants.autoSimResultPath != null ? Path.of(ModeConstants.autoSimResultPath) : null);
+    if (!autoSim.start(CommandScheduler.getInstance())) {
+      autoSim = null;
+      finishSimulation();
+    }
+  }
+
+  /**
+   * Runs every PathPlanner auto under every combination in {@link AutoSimConstants}, each in its own
+   * process, and writes a ranked report instead of starting the robot
+   */
+  private void runAutoSimBatch() {
+    List<AutoSimScenario> scenarios = new ArrayList<>();
+    for (var alliance : AutoSimConstants.batchAlliances) {
+      for (var offset : AutoSimConstants.batchStartOffsets) {
+        for (double volts : AutoSimConstants.batchBatteryVolts) {
+          scenarios.add(new AutoSimScenario(alliance, offset, volts));
+        }
+      }
+    }
+    AutoSimBatch batch = new AutoSimBatch(Main.class.getName(), Path.of(AutoSimConstants.batchOutputDirectory),
+      AutoSimConstants.batchRunTimeoutSeconds);
+    try {
+      batch.run(PathPlannerUtil.getAutos(), scenarios, "AUTO_SIM_BATCH");
+    } catch (IOException e) {
+      DriverStation.reportError("AutoSim batch failed: " + e.getMessage(), e.getStackTrace());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finishSimulation();
+  }
+
+  /** Ends a run that has no driver once the log is on disk, checking a replay against its original */
+  private void finishSimulation() {
+    logger.awaitDrained(5);
+    LogReplay replay = LogReplay.getInstance();
+    if (replay != null) {
+      replay.check(LoggingConstants.replayUncheckedPrefixes);
+    }
+    endCompetition();
   }
 
   public void driverStationConnected(){
     configureAutos();
+    // Bracket every binding so trigger polling shows up as its own section
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(() -> profiler.start(triggerSection));
     configureBindings();
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(() -> profiler.stop(triggerSection));
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -81,7 +261,9 @@ public class Robot extends TimedRobot {
   }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    autoPreloader.update();
+  }
 
   @Override
   public void disabledExit() {}
@@ -90,7 +272,8 @@ public class Robot extends TimedRobot {
 
   @Override
   public void autonomousInit() {
-    m_autonomousCommand = autoChooser.getSelected().get();
+    profiler.reset();
+    m_autonomousCommand = autoPreloader.get();
     //shooter.arm.resetTargetAngleToEncoderAngle();
 
     // schedule the autonomous command (example)
@@ -105,6 +288,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    profiler.reset();
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -138,14 +322,18 @@ public class Robot extends TimedRobot {
   public void testExit() {}
 
   private void configureAutos(){
-    //PathPlannerUtil.configure(drive,shooter);
+    // Still off on the robot until path following is tuned there; simulation needs it for the
+    // autos to drive at all, which is what the headless auto runs measure
+    if (ModeConstants.mode == Constants.Mode.SIM) {
+      PathPlannerUtil.configure(drive, shooter);
+    }
     autoChooser.addOption("Do Nothing", () -> Commands.print("Doing Nothing"));
     autoChooser.setDefaultOption("Nick's Taxi Service", () ->   (drive.driveRobotCentricCommand(() -> new ChassisSpeeds(0.5, 0, 0)).withTimeout(4)));
     //autoChooser.addOption("Shoot + Nick's Taxi Service", () ->   shooter.shootCommand().andThen(drive.driveRobotCentricCommand(() -> new ChassisSpeeds(1.2, 0, 0)).withTimeout(2.5)));
     PathPlannerUtil.getAutos().forEach(path -> {
       autoChooser.addOption(path, () -> PathPlannerUtil.getAutoCommand(path));
     });
-    SmartDashboard.putData("Auto Chooser", autoChooser);
+    SmartDashboard.putData(autoChooserKey, autoChooser);
   }
 
   private void configureBindings(){
@@ -171,10 +359,25 @@ public class Robot extends TimedRobot {
   public void simulationPeriodic() {}
 
   private void configureSubsystems() {
-    drive = new Drive(TunerConstants.DriveTrain);
+    switch (ModeConstants.mode) {
+      case REAL:
+        drive = new Drive(new SwerveIOReal(TunerConstants.DriveTrain));
+        shooter = new Shooter(new ArmIOReal(), new FlywheelIOReal(), new RollersIOReal(), drive::getSnapshot);
+        break;
+      case SIM:
+        swerveSim = new SwerveIOSim(TunerConstants.DriveTrain);
+        drive = new Drive(swerveSim);
+        shooter = new Shooter(new ArmIOSim(), new FlywheelIOSim(), new RollersIOSim(), drive::getSnapshot);
+        break;
+      default:
+        // Inputs come from the log, so no hardware is touched
+        drive = new Drive(new SwerveIO(){});
+        shooter = new Shooter(new ArmIO(){}, new FlywheelIO(){}, new RollersIO(){}, drive::getSnapshot);
+        break;
+    }
     // elevator = new Elevator();
     // intake = new Intake();
-    shooter = new Shooter();
+    vision = new Vision(drive, swerveSim != null ? swerveSim::getTruePose : null);
   }
 
 }
@@ -4,31 +4,32 @@
 
 package frc.robot.commands;
 
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Translation2d;
-
-import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.math.geometry.Pose2d;
 
 import edu.wpi.first.wpilibj2.command.Command;
 
-import frc.robot.Constants.FieldConstants;
 import frc.robot.io.DriverControls;
 import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.shooter.ShotSolver;
 
 /** An example command that uses an example subsystem. */
 public class AimAtSpeaker extends Command {
   private Drive drive;
-  private Translation2d difference;
+  private ShotSolver solver;
   private DriverControls controls;
-  private double targetAngle;
+  /** Field relative heading to face, radians */
+  double targetAngle;
+  /** Robot to target, field relative meters, the center of rotation when rotating around it */
+  double targetDx;
+  double targetDy;
   private boolean rotateAroundPose;
 
 
   
   //Creates a new ExampleCommand
-  public AimAtSpeaker(Drive swerve,DriverControls controls, boolean rotateAroundPose) {
+  public AimAtSpeaker(Drive swerve,DriverControls controls, boolean rotateAroundPose, ShotSolver solver) {
     this.drive = swerve;
+    this.solver = solver;
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(drive);
     this.controls = controls;
@@ -42,16 +43,24 @@ public class AimAtSpeaker extends Command {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    if(DriverStation.getAlliance().get().equals(Alliance.Blue)){
-      difference = FieldConstants.SpeakerK.kBlueCenterOpening.toTranslation2d().minus(this.drive.getPose().getTranslation());
-      targetAngle = Math.atan2(difference.getY(), difference.getX());
-    } else {
-      difference = FieldConstants.SpeakerK.kRedCenterOpening.toTranslation2d().minus(this.drive.getPose().getTranslation());
-      targetAngle = Math.atan2(difference.getY(), difference.getX());
-    }
+    // Same snapshot the solver reads, so the offset and the heading come from one odometry update
+    updateTarget(drive.getSnapshot().pose);
+
+    if(rotateAroundPose) drive.targetPointDrive(targetDx, targetDy, controls);
+    else drive.targetAngleDrive(targetAngle, controls);
+  }
 
-    if(rotateAroundPose) drive.targetAngleDrive(difference,controls);
-    else drive.targetAngleDrive(Rotation2d.fromRadians(targetAngle), controls);
+  /**
+   * Aims at the speaker shifted against our velocity so the note lands while we keep driving.
+   * Runs every loop, so the target is kept as primitives for the drive instead of new geometry.
+   * Also called by AimAtSpeakerBenchmark.
+   *
+   * @param robot Pose from the snapshot the solver reads
+   */
+  void updateTarget(Pose2d robot) {
+    targetDx = solver.getTargetX() - robot.getX();
+    targetDy = solver.getTargetY() - robot.getY();
+    targetAngle = solver.getHeadingRadians();
   }
 
   // Called once the command ends or is interrupted.
@@ -11,32 +11,57 @@ import static edu.wpi.first.units.Units.Volts;
 import java.util.function.Supplier;
 
 import com.ctre.phoenix6.SignalLogger;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest.SysIdSwerveRotation;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest.SysIdSwerveTranslation;
 
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
 
-import frc.lib.swerve.Swerve;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.logging.LogTable;
 import frc.lib.swerve.SwerveConfig;
-import frc.lib.utils.FieldUtil;
+import frc.lib.swerve.SwerveIO;
+import frc.lib.swerve.SwerveSetpointGenerator;
+import frc.lib.utils.LoopProfiler;
 import frc.lib.utils.PathPlannerUtil;
-//import frc.robot.Vision;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
 import frc.robot.Constants.SwerveConstants;
 import frc.robot.io.DriverControls;
 
 public class Drive extends SubsystemBase {
   public static double limit = 1;
-  private Swerve swerve;
-  private FieldUtil fieldUtil = FieldUtil.getField();
+  private final SwerveIO io;
+  private final SwerveIO.SwerveIOInputs inputs = new SwerveIO.SwerveIOInputs();
+  private final LogTable inputsTable = new LogTable("Inputs/Drive/");
+  private final Telemetry.StructEntry<Pose2d> poseEntry = Telemetry.getInstance().addStruct("Drive/Pose", Pose2d.struct, Priority.HIGH);
+  private final Telemetry.StructArrayEntry<SwerveModuleState> moduleStatesEntry =
+    Telemetry.getInstance().addStructArray("Drive/ModuleStates", SwerveModuleState.struct, Priority.HIGH);
+  /**
+   * The snapshot is overwritten in place every loop, but the logger serializes module states later
+   * on its writer thread. Each loop copies them into the other of two arrays; the writer drains
+   * every few milliseconds, long before an array comes around to be refilled two loops later.
+   */
+  private final SwerveModuleState[][] loggedModuleStates = new SwerveModuleState[2][inputs.snapshot.getModuleCount()];
+  private int loggedModuleStatesIndex = 0;
+  private final Telemetry.StructEntry<Pose2d> targetPoseEntry = Telemetry.getInstance().addStruct("Drive/TargetPose", Pose2d.struct, Priority.LOW);
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final int periodicSection = profiler.register("Drive.periodic()");
+  private final int simulationSection = profiler.register("Drive.simulationPeriodic()");
   private boolean sysIdTranslator = true;
   private final SysIdSwerveTranslation translation = new SysIdSwerveTranslation();
   private final SysIdRoutine sysIdTranslation = new SysIdRoutine(
@@ -46,7 +71,7 @@ public class Drive extends SubsystemBase {
       null,
       null),  
     new SysIdRoutine.Mechanism(
-      (volts) -> swerve.setControl(translation.withVolts(volts)),
+      (volts) -> setControl(translation.withVolts(volts)),
       null,
       this)
     );
@@ -58,63 +83,107 @@ public class Drive extends SubsystemBase {
       null,
       null),
     new SysIdRoutine.Mechanism(
-      (volts) -> swerve.setControl(rotation.withVolts(volts)),
+      (volts) -> setControl(rotation.withVolts(volts)),
       null,
       this));
 
-  private SlewRateLimiter forwardLimiter, strafeLimiter;
+  /** Module positions are the ones the drivetrain's kinematics are built from */
+  private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(SwerveConstants.modulePositions,
+    SwerveConstants.maxModuleVelocityMPS, SwerveConstants.setpointAccelerationMPSSq, SwerveConstants.setpointDecelerationMPSSq,
+    SwerveConstants.maxModuleSteerVelocityRPS);
+  /** FPGA time of the last generated setpoint, -infinity once another request has taken over */
+  private double lastSetpointTime = Double.NEGATIVE_INFINITY;
+
   /** Creates a new Drive */
-  public Drive(Swerve swerve) {
+  public Drive(SwerveIO io) {
     SignalLogger.setPath("logs/sysid/drive");
-    this.swerve = swerve;
+    this.io = io;
+    for (SwerveModuleState[] states : loggedModuleStates) {
+      for (int i = 0; i < states.length; i++) {
+        states[i] = new SwerveModuleState();
+      }
+    }
 
-    forwardLimiter = new SlewRateLimiter(5, -10, 0);
-    strafeLimiter = new SlewRateLimiter(5, -10, 0);
-    swerve.setPigeonOffset();
+    io.updateInputs(inputs);
+    inputsTable.process(inputs);
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    profiler.start(periodicSection);
+    io.updateInputs(inputs);
+    inputsTable.process(inputs);
+    // The one snapshot every consumer reads this loop. Its pose is immutable, so the entry can hold on to it.
+    DrivetrainSnapshot snapshot = inputs.snapshot;
+    poseEntry.set(snapshot.pose);
+    loggedModuleStatesIndex = 1 - loggedModuleStatesIndex;
+    SwerveModuleState[] moduleStates = loggedModuleStates[loggedModuleStatesIndex];
+    for (int i = 0; i < moduleStates.length; i++) {
+      moduleStates[i].speedMetersPerSecond = snapshot.getModuleState(i).speedMetersPerSecond;
+      moduleStates[i].angle = snapshot.getModuleState(i).angle;
+    }
+    moduleStatesEntry.set(moduleStates);
+    profiler.stop(periodicSection);
   }
 
   @Override
   public void simulationPeriodic() {
     // This method will be called once per scheduler run during simulation
-    Pose2d targetPose = PathPlannerUtil.getCurrentTargetPose();
-    fieldUtil.setSwerveRobotPose(swerve.getPose2d(),swerve.getModuleStates(), SwerveConstants.modulePositions);
-    fieldUtil.setObjectGlobalPose("Target Pose", targetPose);
-    swerve.updateSimState(0.02, 12);
+    profiler.start(simulationSection);
+    targetPoseEntry.set(PathPlannerUtil.getCurrentTargetPose());
+    profiler.stop(simulationSection);
   }
 
   
   /** 
-   * @param speeds
+   * @param speeds Field relative, limited to what the modules can reach
    */
   public void driveFieldCentric(ChassisSpeeds speeds){
-    swerve.setControl(
-      SwerveConfig.drive
-      .withVelocityX(forwardLimiter.calculate(speeds.vxMetersPerSecond))
-      .withVelocityY(strafeLimiter.calculate(speeds.vyMetersPerSecond))
-      .withRotationalRate(speeds.omegaRadiansPerSecond)
-    );
+    // Rotated into the robot frame by hand, the rotation caches its sine and cosine
+    Rotation2d heading = inputs.snapshot.pose.getRotation();
+    driveSetpoint(
+      speeds.vxMetersPerSecond * heading.getCos() + speeds.vyMetersPerSecond * heading.getSin(),
+      -speeds.vxMetersPerSecond * heading.getSin() + speeds.vyMetersPerSecond * heading.getCos(),
+      speeds.omegaRadiansPerSecond);
   }
 
+  /** 
+   * @param speeds Robot relative, limited to what the modules can reach
+   */
   public void driveRobotCentric(ChassisSpeeds speeds){
-    swerve.setControl(
-      SwerveConfig.robotCentric
-      .withVelocityX(forwardLimiter.calculate(speeds.vxMetersPerSecond))
-      .withVelocityY(strafeLimiter.calculate(speeds.vyMetersPerSecond))
-      .withRotationalRate(speeds.omegaRadiansPerSecond)
-    );
+    driveSetpoint(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+  }
+
+  /**
+   * Steps the setpoint generator toward robot relative speeds and applies its module states. The
+   * generator restarts from the measured state when it hasn't run for a while, e.g. after being
+   * disabled, or when another request had control in between.
+   */
+  private void driveSetpoint(double vx, double vy, double omega){
+    double now = Timer.getFPGATimestamp();
+    double dt = now - lastSetpointTime;
+    if (dt > SwerveConstants.setpointTimeoutSeconds) {
+      setpointGenerator.reset(inputs.snapshot);
+      dt = TimedRobot.kDefaultPeriod;
+    }
+    lastSetpointTime = now;
+    setpointGenerator.generate(vx, vy, omega, dt);
+    io.setControl(SwerveConfig.applyModuleStates.withStates(setpointGenerator.getModuleSpeeds(), setpointGenerator.getModuleHeadings()));
+  }
+
+  /** Applies a request that bypasses the setpoint generator */
+  private void setControl(SwerveRequest request){
+    lastSetpointTime = Double.NEGATIVE_INFINITY;
+    io.setControl(request);
   }
 
   public void brake(){
-    swerve.setControl(SwerveConfig.brake);
+    setControl(SwerveConfig.brake);
   }
 
   public Rotation2d geRotation2d(){
-    return swerve.getPose2d().getRotation();
+    return inputs.snapshot.pose.getRotation();
   }
 
   public void increaseLimit(){
@@ -146,7 +215,7 @@ public class Drive extends SubsystemBase {
   }
 
   public ChassisSpeeds getChassisSpeeds(){
-    return swerve.getChassisSpeeds();
+    return inputs.snapshot.chassisSpeeds;
   }
 
   public Command brakeCommand(){
@@ -154,15 +223,19 @@ public class Drive extends SubsystemBase {
   }
 
   public Pose2d getPose(){
-    return swerve.getPose2d();
+    return inputs.snapshot.pose;
+  }
+
+  public DrivetrainSnapshot getSnapshot(){
+    return inputs.snapshot;
   }
 
   public void resetPose(Pose2d pose){
-    swerve.resetPose(pose);
+    io.resetPose(pose);
   }
 
   public Command resetGyroCommand(){
-    return swerve.zeroGyroCommand();
+    return Commands.runOnce(io::zeroGyro);
   }
 
   public Command sysIdDynamic(Direction direction){
@@ -178,13 +251,25 @@ public class Drive extends SubsystemBase {
   }
 
   public void targetAngleDrive(Translation2d targetAngle, DriverControls controls){
-    swerve.targetAngleDrive(targetAngle, controls.driveForward(), controls.driveStrafe());
+    targetPointDrive(targetAngle.getX(), targetAngle.getY(), controls);
   }
 
   public void targetAngleDrive(Rotation2d targetAngle, DriverControls controls){
-    swerve.targetAngleDrive(targetAngle, controls.driveForward(), controls.driveStrafe());
+    targetAngleDrive(targetAngle.getRadians(), controls);
   }
 
-  //public void addVisionMeasurement(){}
+  /** Like {@link #targetAngleDrive(Translation2d, DriverControls)}, without building the translation every loop */
+  public void targetPointDrive(double centerXMeters, double centerYMeters, DriverControls controls){
+    setControl(SwerveConfig.facingAngle.withTarget(controls.driveForward(), controls.driveStrafe(), 0, centerXMeters, centerYMeters));
+  }
+
+  /** Like {@link #targetAngleDrive(Rotation2d, DriverControls)}, without building the rotation every loop */
+  public void targetAngleDrive(double targetRadians, DriverControls controls){
+    setControl(SwerveConfig.facingAngle.withTarget(controls.driveForward(), controls.driveStrafe(), targetRadians, 0, 0));
+  }
+
+  public void addVisionMeasurement(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs){
+    io.addVisionMeasurement(pose, timestamp, stdDevs);
+  }
 
 }
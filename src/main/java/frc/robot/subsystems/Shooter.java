@@ -1,6 +1,16 @@
 package frc.robot.subsystems;
 
 import frc.robot.subsystems.shooter.*;
+
+import java.util.function.Supplier;
+
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
+import frc.robot.Constants.ShooterConstants;
+import frc.robot.Constants.ShooterConstants.ArmConstants;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 
@@ -9,21 +19,120 @@ public class Shooter {
     public Arm arm;
     public Flywheel flywheel;
     public Rollers rollers;
+    public ShotMap shotMap;
+    public ShotSolver solver;
+
+    private double shotStartTime;
+    private double feedStartTime;
+    private double noteGoneSince = Double.NaN;
+    private boolean noteLeft;
+    private int failedShots;
+    private final Telemetry.DoubleEntry readyTimeEntry = Telemetry.getInstance().addDouble("Shooter/ReadyTimeMs", Priority.LOW);
+    private final Telemetry.DoubleEntry feedTimeEntry = Telemetry.getInstance().addDouble("Shooter/FeedTimeMs", Priority.LOW);
+    private final Telemetry.DoubleEntry shotTimeEntry = Telemetry.getInstance().addDouble("Shooter/ShotTimeMs", Priority.LOW);
+    private final Telemetry.DoubleEntry failedShotsEntry = Telemetry.getInstance().addDouble("Shooter/FailedShots", Priority.LOW);
+
+    public Shooter(ArmIO armIO, FlywheelIO flywheelIO, RollersIO rollersIO, Supplier<DrivetrainSnapshot> drivetrain){
+        arm = new Arm(armIO);
+        flywheel = new Flywheel(flywheelIO);
+        rollers = new Rollers(rollersIO);
+        shotMap = new ShotMap();
+        solver = new ShotSolver(shotMap, drivetrain);
+    }
+
+    /** @return True when the flywheel is up to speed and the arm is on target */
+    public boolean isReadyToShoot(){
+        return flywheel.isAtTargetRPM() && arm.isArmAtTarget(ArmConstants.atTargetToleranceRadians);
+    }
+
+    /**
+     * Only meaningful while feeding, which only starts with a note in the rollers, so an empty
+     * sensor here means the note really went through.
+     *
+     * @return True once the note sensor has read empty for the debounce time
+     */
+    private boolean hasNoteLeft(){
+        if(rollers.hasNote()){
+            noteGoneSince = Double.NaN;
+            return false;
+        }
+        double now = Timer.getFPGATimestamp();
+        if(Double.isNaN(noteGoneSince)){
+            noteGoneSince = now;
+        }
+        noteLeft = now - noteGoneSince >= ShooterConstants.noteExitDebounceSeconds;
+        return noteLeft;
+    }
+
+    /** @return True when the shot can be fed: ready, with a note to feed */
+    private boolean canFeed(){
+        return isReadyToShoot() && rollers.hasNote();
+    }
 
-    public Shooter(){
-        arm = new Arm();
-        flywheel = new Flywheel();
-        rollers = new Rollers();
+    /** Counts a shot that didn't go and tells the drivers why */
+    private void reportFailedShot(String reason){
+        failedShotsEntry.set(++failedShots);
+        DriverStation.reportWarning("Shot failed: " + reason, false);
     }
 
+    private void reportNotFed(){
+        if(!rollers.hasNote()){
+            reportFailedShot("no note in the rollers");
+        }else{
+            reportFailedShot(String.format("not ready after %.1f s (flywheel %s, arm %s)", ShooterConstants.readyTimeoutSeconds,
+                flywheel.isAtTargetRPM() ? "ready" : "not at speed", arm.isArmAtTarget(ArmConstants.atTargetToleranceRadians) ? "ready" : "not on target"));
+        }
+    }
+
+    /**
+     * Spins up and aims, feeds as soon as both are ready, and stops as soon as the note is gone.
+     * The speed is set once up front so the ready check never sees the previous target, then
+     * tracked along with the angle.
+     * If either isn't ready within the timeout, or there is no note to feed, the shot is reported
+     * and abandoned rather than fed off target.
+     */
     public Command shootCommand(){
         return Commands.sequence(
-            flywheel.setShootSpeedCommand(),
-            arm.setArmShootPositionAndWait().withTimeout(4),
-            rollers.setRollersSpeedInCommand(),
-            Commands.waitSeconds(3),
+            Commands.runOnce(() -> shotStartTime = Timer.getFPGATimestamp()),
+            flywheel.setShootRPMCommand(solver::getFlywheelRPM),
+            Commands.deadline(
+                Commands.waitUntil(this::isReadyToShoot).withTimeout(ShooterConstants.readyTimeoutSeconds),
+                trackTarget()),
+            Commands.either(feedCommand(), Commands.runOnce(this::reportNotFed), this::canFeed),
             flywheel.stopFlywheelCommand(),
             rollers.stopRollersCommand()
         );
     }
+
+    /** Re-solves the arm angle and flywheel speed every loop, so both follow the robot as it moves */
+    private Command trackTarget(){
+        return Commands.parallel(
+            arm.trackPosition(solver::getArmRadians),
+            flywheel.trackRPMCommand(solver::getFlywheelRPM));
+    }
+
+    /** Feeds until the note has left, tracking the target the whole time */
+    private Command feedCommand(){
+        return Commands.sequence(
+            Commands.runOnce(() -> {
+                feedStartTime = Timer.getFPGATimestamp();
+                noteGoneSince = Double.NaN;
+                noteLeft = false;
+                readyTimeEntry.set((feedStartTime - shotStartTime) * 1000);
+            }),
+            rollers.setRollersSpeedInCommand(),
+            Commands.deadline(
+                Commands.waitUntil(this::hasNoteLeft).withTimeout(ShooterConstants.feedTimeoutSeconds),
+                trackTarget()),
+            Commands.runOnce(() -> {
+                if(!noteLeft){
+                    reportFailedShot(String.format("note still in the rollers after feeding for %.1f s", ShooterConstants.feedTimeoutSeconds));
+                    return;
+                }
+                double now = Timer.getFPGATimestamp();
+                feedTimeEntry.set((now - feedStartTime) * 1000);
+                shotTimeEntry.set((now - shotStartTime) * 1000);
+            })
+        );
+    }
 }
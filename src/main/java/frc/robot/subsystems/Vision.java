@@ -0,0 +1,116 @@
+package frc.robot.subsystems;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import edu.wpi.first.cameraserver.CameraServer;
+import edu.wpi.first.cscore.UsbCamera;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.utils.LoopProfiler;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
+import frc.lib.vision.AprilTagVisionCamera;
+import frc.lib.vision.SimVisionCamera;
+import frc.lib.vision.VisionFusion;
+import frc.lib.vision.VisionObservation;
+import frc.lib.vision.VisionWorker;
+import frc.robot.Constants;
+import frc.robot.Constants.ModeConstants;
+
+public class Vision extends SubsystemBase {
+  private final Drive drive;
+  private final List<VisionWorker> workers;
+  private final Telemetry.DoubleEntry[] latencyEntries;
+  private final Telemetry.DoubleEntry[] queueDepthEntries;
+  private final Telemetry.DoubleEntry[] droppedEntries;
+  private final Telemetry.DoubleEntry[] rejectedFramesEntries;
+  private final Telemetry.DoubleEntry acceptedEntry = Telemetry.getInstance().addDouble("Vision/Accepted", Priority.LOW);
+  private final Telemetry.DoubleEntry rejectedEntry = Telemetry.getInstance().addDouble("Vision/Rejected", Priority.LOW);
+  private final double[] latenciesMs;
+  private final VisionFusion fusion;
+  private final VisionObservation observation = new VisionObservation();
+  private long lastOdometryVersion = -1;
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final int periodicSection = profiler.register("Vision.periodic()");
+
+  /**
+   * Creates a new Vision. Each camera is polled and solved on its own thread; this subsystem only
+   * drains their queues and fuses the results. The real robot finds tags in its USB cameras' frames
+   * and solves for its pose from them. Simulation uses cameras that see the true pose with noise
+   * added instead. A replay gets none since the logged pose already includes them, and headless
+   * auto runs skip them too so every run of an auto comes out the same.
+   *
+   * @param drive
+   * @param simTruePose Where the simulated robot really is, which the simulated cameras see; null
+   *        when not simulating. Not the estimated pose, or vision would only ever confirm itself.
+   */
+  public Vision(Drive drive, Supplier<Pose2d> simTruePose) {
+    this.drive = drive;
+    fusion = new VisionFusion(drive::addVisionMeasurement);
+    if (ModeConstants.mode == Constants.Mode.REAL) {
+      workers = List.of(
+        aprilTagWorker("FrontLeft", Constants.Vision.frontLeftCamDevice, Constants.Vision.frontLeftCamTransform),
+        aprilTagWorker("FrontRight", Constants.Vision.frontRightCamDevice, Constants.Vision.frontRightCamTransform));
+    } else if (simTruePose != null && ModeConstants.autoSimSelection == null) {
+      workers = List.of(
+        new VisionWorker(new SimVisionCamera("FrontLeft", Constants.Vision.frontLeftCamTransform, Constants.Vision.fieldLayout, simTruePose),
+          Constants.Vision.cameraQueueCapacity),
+        new VisionWorker(new SimVisionCamera("FrontRight", Constants.Vision.frontRightCamTransform, Constants.Vision.fieldLayout, simTruePose),
+          Constants.Vision.cameraQueueCapacity));
+    } else {
+      workers = List.of();
+    }
+
+    latencyEntries = new Telemetry.DoubleEntry[workers.size()];
+    queueDepthEntries = new Telemetry.DoubleEntry[workers.size()];
+    droppedEntries = new Telemetry.DoubleEntry[workers.size()];
+    rejectedFramesEntries = new Telemetry.DoubleEntry[workers.size()];
+    latenciesMs = new double[workers.size()];
+    for (int i = 0; i < workers.size(); i++) {
+      String prefix = "Vision/" + workers.get(i).getName() + "/";
+      latencyEntries[i] = Telemetry.getInstance().addDouble(prefix + "LatencyMs", Priority.HIGH);
+      queueDepthEntries[i] = Telemetry.getInstance().addDouble(prefix + "QueueDepth", Priority.LOW);
+      droppedEntries[i] = Telemetry.getInstance().addDouble(prefix + "DroppedFrames", Priority.LOW);
+      rejectedFramesEntries[i] = Telemetry.getInstance().addDouble(prefix + "RejectedFrames", Priority.LOW);
+      workers.get(i).start(Constants.Vision.cameraPeriodSeconds);
+    }
+  }
+
+  private static VisionWorker aprilTagWorker(String name, int device, Transform3d robotToCamera) {
+    UsbCamera camera = CameraServer.startAutomaticCapture(name, device);
+    camera.setResolution(Constants.Vision.cameraWidthPixels, Constants.Vision.cameraHeightPixels);
+    return new VisionWorker(new AprilTagVisionCamera(name, CameraServer.getVideo(camera), Constants.Vision.cameraIntrinsics,
+      Constants.Vision.cameraDistortion, robotToCamera, Constants.Vision.fieldLayout), Constants.Vision.cameraQueueCapacity);
+  }
+
+  @Override
+  public void periodic() {
+    // This method will be called once per scheduler run
+    profiler.start(periodicSection);
+    DrivetrainSnapshot snapshot = drive.getSnapshot();
+    if (snapshot.version != lastOdometryVersion) {
+      lastOdometryVersion = snapshot.version;
+      fusion.addOdometry(snapshot.timestamp, snapshot.pose);
+    }
+
+    double now = Timer.getFPGATimestamp();
+    for (int i = 0; i < workers.size(); i++) {
+      VisionWorker worker = workers.get(i);
+      while (worker.poll(observation)) {
+        latenciesMs[i] = (now - observation.timestamp) * 1000;
+        fusion.process(observation);
+      }
+      latencyEntries[i].set(latenciesMs[i]);
+      queueDepthEntries[i].set(worker.getQueueDepth());
+      droppedEntries[i].set(worker.getDroppedFrames());
+      rejectedFramesEntries[i].set(worker.getRejectedFrames());
+    }
+    acceptedEntry.set(fusion.getAcceptedCount());
+    rejectedEntry.set(fusion.getRejectedCount());
+    profiler.stop(periodicSection);
+  }
+}
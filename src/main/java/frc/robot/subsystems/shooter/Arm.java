@@ -1,18 +1,21 @@
 package frc.robot.subsystems.shooter;
 
-import com.ctre.phoenix6.hardware.TalonFX;
-//import com.ctre.phoenix6.signals.ControlModeValue;
+import java.util.function.DoubleSupplier;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Voltage;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.logging.LogTable;
+import frc.lib.utils.LoopProfiler;
+import frc.lib.utils.MultiRateScheduler;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
 import frc.robot.Constants.ShooterConstants.ArmConstants;
 
 /**
@@ -21,12 +24,52 @@ import frc.robot.Constants.ShooterConstants.ArmConstants;
  */
 public class Arm extends SubsystemBase
 {
-        private final TalonFX arm;
+        private final ArmIO io;
+        private final ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs();
+        private final LogTable inputsTable = new LogTable("Inputs/Arm/");
         private Rotation2d targetAngle;
-        private DutyCycleEncoder throughBore = new DutyCycleEncoder(ArmConstants.throuhBoreEncoderPort);       
-        public Arm ()
+        private final LoopProfiler profiler = LoopProfiler.getInstance();
+        private final int periodicSection = profiler.register("Arm.periodic()");
+        /** False while something is driving the motor directly, e.g. SysId or manual rates */
+        private boolean closedLoop = true;
+        private double lastResyncTime = Double.NEGATIVE_INFINITY;
+        private final Telemetry.DoubleEntry positionEntry = Telemetry.getInstance().addDouble("clawEncoderPos", Priority.HIGH);
+        private final Telemetry.DoubleEntry targetEntry = Telemetry.getInstance().addDouble("Arm/TargetRadians", Priority.HIGH);
+        private final Telemetry.DoubleEntry currentEntry = Telemetry.getInstance().addDouble("Arm/CurrentAmps", Priority.LOW);
+
+        public Arm (ArmIO io)
         {
-            arm = new TalonFX(0);
+            this.io = io;
+            io.updateInputs(inputs);
+            inputsTable.process(inputs);
+            seedMotorPosition();
+            targetAngle = getArmRotation();
+            MultiRateScheduler.getInstance().addPeriodic("Arm.control()", this::control, ArmConstants.controlRateHz);
+        }
+
+        /** Sets the motor's position to the absolute through-bore angle */
+        private void seedMotorPosition()
+        {
+            if (inputs.absoluteConnected)
+            {
+                io.seedPosition(getArmRotation().getRotations());
+                lastResyncTime = Timer.getFPGATimestamp();
+            }
+        }
+
+        /** Reseeds the motor if it has drifted from the through-bore while the arm is still */
+        private void resyncIfDrifted()
+        {
+            if (Timer.getFPGATimestamp() - lastResyncTime < ArmConstants.resyncMinIntervalSeconds
+                || Math.abs(Units.rotationsToRadians(inputs.motorVelocityRotationsPerSecond)) > ArmConstants.resyncMaxVelocityRadiansPerSec)
+            {
+                return;
+            }
+            double drift = MathUtil.angleModulus(getArmRotation().getRadians() - getMotorRadians());
+            if (Math.abs(drift) > ArmConstants.resyncThresholdRadians)
+            {
+                seedMotorPosition();
+            }
         }
     
 
@@ -47,7 +90,8 @@ public class Arm extends SubsystemBase
      */
     public void rotateArm(double rate)
     {
-        arm.set(rate);
+        closedLoop = false;
+        io.setDutyCycle(rate);
     }
 
     /**
@@ -71,32 +115,78 @@ public class Arm extends SubsystemBase
      */
     public void stopArm() 
     {
-        arm.set(0);
+        closedLoop = false;
+        io.setDutyCycle(0);
     }
 
     /**
-     * Periodically updates the SmartDashboard with the current arm encoder position.
+     * Reads this loop's inputs and hands the latest values to the telemetry registry. Control runs
+     * from the multi-rate scheduler, see {@link #control()}.
      */
     @Override
     public void periodic() 
     {
-        SmartDashboard.putNumber("clawEncoderPos", arm.getPosition().getValueAsDouble());
+        profiler.start(periodicSection);
+        io.updateInputs(inputs);
+        inputsTable.process(inputs);
+        positionEntry.set(inputs.motorPositionRotations);
+        targetEntry.set(targetAngle.getRadians());
+        currentEntry.set(inputs.currentAmps);
+        profiler.stop(periodicSection);
+    }
+
+    /**
+     * Sends the target to the motor and checks for encoder drift. Runs from the multi-rate scheduler
+     * after the commands, so it sees this loop's inputs and target.
+     */
+    private void control()
+    {
+        if (closedLoop)
+        {
+            io.setPosition(targetAngle.getRotations());
+        }
+        resyncIfDrifted();
     }
 
     public Command setArmShootPositionAndWait(){
         return run(() -> setTargetAngle(ArmConstants.shootRotation)).until(() -> isArmAtTarget(Units.degreesToRadians(0.5)));
     }
 
+    /**
+     * Tracks a moving target angle until the arm reaches it
+     * @param radians Target angle, read every loop
+     */
+    public Command setArmPositionAndWait(DoubleSupplier radians){
+        return trackPosition(radians).until(() -> isArmAtTarget(ArmConstants.atTargetToleranceRadians));
+    }
+
+    /**
+     * Keeps following a moving target angle until interrupted
+     * @param radians Target angle, read every loop
+     */
+    public Command trackPosition(DoubleSupplier radians){
+        return run(() -> setTargetAngle(Rotation2d.fromRadians(radians.getAsDouble())));
+    }
+
     public void setTargetAngle(Rotation2d targetAngle){ 
         this.targetAngle = Rotation2d.fromRadians(MathUtil.clamp(targetAngle.getRadians(), ArmConstants.minRadians, ArmConstants.maxRadians));
+        closedLoop = true;
     }
 
+    /**
+     * @param threshold Allowed error in radians
+     */
     public boolean isArmAtTarget(double threshold){
-        return MathUtil.isNear(targetAngle.getDegrees(), getArmRotation().getDegrees(),threshold);
+        return MathUtil.isNear(targetAngle.getRadians(), getMotorRadians(), threshold);
+    }
+
+    /** @return Arm angle from the motor encoder, which updates at 1 kHz */
+    public double getMotorRadians(){
+        return Units.rotationsToRadians(inputs.motorPositionRotations);
     }
 
     public Rotation2d getArmRotation(){
-        return Rotation2d.fromRadians(throughBore.getAbsolutePosition() * 2 * Math.PI).minus(Rotation2d.fromDegrees(350));
+        return Rotation2d.fromRadians(inputs.absolutePosition * 2 * Math.PI).minus(Rotation2d.fromDegrees(350));
     }
 
 
@@ -105,11 +195,12 @@ public class Arm extends SubsystemBase
     }
 
     public double getRawEncoderValue(){
-        return throughBore.getAbsolutePosition();
+        return inputs.absolutePosition;
     }
 
     public void armVoltage(Measure<Voltage> voltageMeasure){
-        arm.setVoltage(voltageMeasure.magnitude());
+        closedLoop = false;
+        io.setVoltage(voltageMeasure.magnitude());
     }
 
     public Command setArmAmpPosition(){
@@ -0,0 +1,50 @@
+package frc.robot.subsystems.shooter;
+
+import frc.lib.logging.LogTable;
+import frc.lib.logging.LoggableInputs;
+
+/**
+ * Hardware boundary for the {@link Arm}. Every method defaults to doing nothing, so replaying a log
+ * uses the interface itself: outputs go nowhere and the inputs come from the log.
+ */
+public interface ArmIO {
+  class ArmIOInputs implements LoggableInputs {
+    /** Arm rotations from the motor encoder, 0 at horizontal */
+    public double motorPositionRotations;
+    public double motorVelocityRotationsPerSecond;
+    public double currentAmps;
+    /** Raw through-bore reading, 0 to 1 */
+    public double absolutePosition;
+    public boolean absoluteConnected;
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("MotorPositionRotations", motorPositionRotations);
+      table.put("MotorVelocityRotationsPerSecond", motorVelocityRotationsPerSecond);
+      table.put("CurrentAmps", currentAmps);
+      table.put("AbsolutePosition", absolutePosition);
+      table.put("AbsoluteConnected", absoluteConnected);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      motorPositionRotations = table.get("MotorPositionRotations", motorPositionRotations);
+      motorVelocityRotationsPerSecond = table.get("MotorVelocityRotationsPerSecond", motorVelocityRotationsPerSecond);
+      currentAmps = table.get("CurrentAmps", currentAmps);
+      absolutePosition = table.get("AbsolutePosition", absolutePosition);
+      absoluteConnected = table.get("AbsoluteConnected", absoluteConnected);
+    }
+  }
+
+  default void updateInputs(ArmIOInputs inputs) {}
+
+  /** Runs the onboard Motion Magic loop to an arm angle */
+  default void setPosition(double rotations) {}
+
+  default void setDutyCycle(double output) {}
+
+  default void setVoltage(double volts) {}
+
+  /** Sets the motor encoder's position, e.g. from the through-bore */
+  default void seedPosition(double rotations) {}
+}
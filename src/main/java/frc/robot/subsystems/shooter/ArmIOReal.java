@@ -0,0 +1,87 @@
+package frc.robot.subsystems.shooter;
+
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.GravityTypeValue;
+import com.ctre.phoenix6.signals.NeutralModeValue;
+
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import frc.lib.utils.SignalRegistry;
+import frc.robot.Constants.ShooterConstants.ArmConstants;
+
+/** Arm on a TalonFX running Motion Magic, with a through-bore for the absolute angle */
+public class ArmIOReal implements ArmIO {
+  protected final TalonFX arm;
+  protected final DutyCycleEncoder throughBore = new DutyCycleEncoder(ArmConstants.throuhBoreEncoderPort);
+  private final MotionMagicVoltage motionMagic = new MotionMagicVoltage(0).withSlot(0);
+  private final StatusSignal<Double> motorPosition;
+  private final StatusSignal<Double> motorVelocity;
+  private final StatusSignal<Double> motorCurrent;
+
+  public ArmIOReal() {
+    arm = new TalonFX(ArmConstants.armLeaderId);
+    arm.getConfigurator().apply(createConfig());
+    motorPosition = arm.getPosition();
+    motorVelocity = arm.getVelocity();
+    motorCurrent = arm.getStatorCurrent();
+    // Refreshed for us at the start of every loop
+    SignalRegistry.getInstance().register(arm, ArmConstants.positionSignalHz, motorPosition, motorVelocity);
+    SignalRegistry.getInstance().register(arm, ArmConstants.currentSignalHz, motorCurrent);
+  }
+
+  /**
+   * The position loop runs on the TalonFX at 1 kHz in arm rotations, with 0 at horizontal so
+   * the cosine gravity term lines up.
+   */
+  private static TalonFXConfiguration createConfig() {
+    var config = new TalonFXConfiguration();
+    config.Slot0.kP = ArmConstants.kP;
+    config.Slot0.kI = ArmConstants.kI;
+    config.Slot0.kD = ArmConstants.kD;
+    config.Slot0.kS = ArmConstants.kS;
+    config.Slot0.kV = ArmConstants.kV;
+    config.Slot0.kG = ArmConstants.kG;
+    config.Slot0.GravityType = GravityTypeValue.Arm_Cosine;
+    config.Feedback.SensorToMechanismRatio = ArmConstants.gearRatio;
+    config.MotionMagic.MotionMagicCruiseVelocity = ArmConstants.cruiseVelocity;
+    config.MotionMagic.MotionMagicAcceleration = ArmConstants.acceleration;
+    config.MotorOutput.NeutralMode = NeutralModeValue.Brake;
+    config.SoftwareLimitSwitch.ForwardSoftLimitEnable = true;
+    config.SoftwareLimitSwitch.ForwardSoftLimitThreshold = Units.radiansToRotations(ArmConstants.maxRadians);
+    config.SoftwareLimitSwitch.ReverseSoftLimitEnable = true;
+    config.SoftwareLimitSwitch.ReverseSoftLimitThreshold = Units.radiansToRotations(ArmConstants.minRadians);
+    return config;
+  }
+
+  @Override
+  public void updateInputs(ArmIOInputs inputs) {
+    inputs.motorPositionRotations = motorPosition.getValueAsDouble();
+    inputs.motorVelocityRotationsPerSecond = motorVelocity.getValueAsDouble();
+    inputs.currentAmps = motorCurrent.getValueAsDouble();
+    inputs.absolutePosition = throughBore.getAbsolutePosition();
+    inputs.absoluteConnected = throughBore.isConnected();
+  }
+
+  @Override
+  public void setPosition(double rotations) {
+    arm.setControl(motionMagic.withPosition(rotations));
+  }
+
+  @Override
+  public void setDutyCycle(double output) {
+    arm.set(output);
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+    arm.setVoltage(volts);
+  }
+
+  @Override
+  public void seedPosition(double rotations) {
+    arm.setPosition(rotations);
+  }
+}
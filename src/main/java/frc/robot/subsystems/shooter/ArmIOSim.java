@@ -0,0 +1,63 @@
+package frc.robot.subsystems.shooter;
+
+import com.ctre.phoenix6.sim.TalonFXSimState;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DutyCycleEncoderSim;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import frc.lib.sim.MechanismSim;
+import frc.lib.sim.PhysicsSim;
+import frc.robot.Constants.ShooterConstants.ArmConstants;
+
+/**
+ * The real arm IO against a single jointed arm with gravity. Motion Magic runs in the simulated
+ * TalonFX, whose output drives the model; the model's angle goes back into the TalonFX rotor and
+ * the through-bore.
+ */
+public class ArmIOSim extends ArmIOReal implements MechanismSim {
+  private final TalonFXSimState motorSim = arm.getSimState();
+  private final DutyCycleEncoderSim throughBoreSim = new DutyCycleEncoderSim(throughBore);
+  private final SingleJointedArmSim armSim = new SingleJointedArmSim(
+    DCMotor.getFalcon500(1),
+    ArmConstants.gearRatio,
+    SingleJointedArmSim.estimateMOI(ArmConstants.simLengthMeters, ArmConstants.simMassKg),
+    ArmConstants.simLengthMeters,
+    ArmConstants.minRadians,
+    ArmConstants.maxRadians,
+    true,
+    ArmConstants.minRadians);
+  private double supplyCurrentAmps = 0;
+
+  public ArmIOSim() {
+    writeSensors();
+    PhysicsSim.getInstance().add(this);
+  }
+
+  @Override
+  public void update(double dtSeconds) {
+    double battery = RobotController.getBatteryVoltage();
+    motorSim.setSupplyVoltage(battery);
+    double volts = motorSim.getMotorVoltage();
+    armSim.setInputVoltage(volts);
+    armSim.update(dtSeconds);
+    writeSensors();
+    // The TalonFX has no current limit configured, so the model's current is what it draws
+    supplyCurrentAmps = MechanismSim.supplyCurrentAmps(armSim.getCurrentDrawAmps(), volts, battery);
+  }
+
+  private void writeSensors() {
+    double armRotations = Units.radiansToRotations(armSim.getAngleRads());
+    motorSim.setRawRotorPosition(armRotations * ArmConstants.gearRatio);
+    motorSim.setRotorVelocity(Units.radiansToRotations(armSim.getVelocityRadPerSec()) * ArmConstants.gearRatio);
+    // Inverse of Arm.getArmRotation()
+    throughBoreSim.setAbsolutePosition(MathUtil.inputModulus(armRotations + 350.0 / 360.0, 0, 1));
+  }
+
+  @Override
+  public double getCurrentDrawAmps() {
+    return supplyCurrentAmps;
+  }
+}
@@ -1,56 +1,117 @@
 package frc.robot.subsystems.shooter;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
-import com.revrobotics.CANSparkBase.IdleMode;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-
-import edu.wpi.first.math.controller.BangBangController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.logging.LogTable;
+import frc.lib.utils.LoopProfiler;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
 import frc.lib.utils.TunableNumber;
 import frc.robot.Constants.ShooterConstants.FlywheelConstants;
 
 public class Flywheel extends SubsystemBase {
-  private CANSparkMax flywheelRightLeader = new CANSparkMax(1, MotorType.kBrushless);
-  private CANSparkMax flywheelLeftFollower = new CANSparkMax(2, MotorType.kBrushless);
-  private final RelativeEncoder flywheelLeftEncoder;
-  private BangBangController flywheelController = new BangBangController();
+  private final FlywheelIO io;
+  private final FlywheelIO.FlywheelIOInputs inputs = new FlywheelIO.FlywheelIOInputs();
+  private final LogTable inputsTable = new LogTable("Inputs/Flywheel/");
+  /** Volts, with velocity in RPM */
   private SimpleMotorFeedforward feedforward = new SimpleMotorFeedforward(FlywheelConstants.kS, FlywheelConstants.kV, FlywheelConstants.kA);
   private TunableNumber tunedkS = new TunableNumber("Flywheel/Tuning/kS");
   private double targetSpeed;
+  /** Signed, 0 when running open loop or stopped */
+  private double targetRPM;
+  private boolean closedLoop = false;
+  private boolean wasAtTarget = false;
+  /** Target the current spin up is timed against */
+  private double timedTargetRPM;
+  private double spinUpStartTime = Double.NaN;
+  private double recoveryStartTime = Double.NaN;
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final int periodicSection = profiler.register("Flywheel.periodic()");
+  private final Telemetry.DoubleEntry rpmEntry = Telemetry.getInstance().addDouble("Flywheel/RPM", Priority.HIGH);
+  private final Telemetry.DoubleEntry targetEntry = Telemetry.getInstance().addDouble("Flywheel/TargetRPM", Priority.HIGH);
+  private final Telemetry.DoubleEntry spinUpEntry = Telemetry.getInstance().addDouble("Flywheel/SpinUpMs", Priority.LOW);
+  private final Telemetry.DoubleEntry recoveryEntry = Telemetry.getInstance().addDouble("Flywheel/RecoveryMs", Priority.LOW);
+  private final Telemetry.DoubleEntry maxJitterEntry = Telemetry.getInstance().addDouble("Flywheel/FastLoopMaxJitterMs", Priority.LOW);
+  private final Telemetry.DoubleEntry averageJitterEntry = Telemetry.getInstance().addDouble("Flywheel/FastLoopAverageJitterMs", Priority.LOW);
 
   /** Creates a new Flywheel. */
-  public Flywheel() {
-    flywheelRightLeader.setIdleMode(IdleMode.kCoast);
-    flywheelLeftFollower.setIdleMode(IdleMode.kCoast);
-
-    flywheelLeftEncoder = flywheelRightLeader.getEncoder();
-    
-    flywheelLeftFollower.setSmartCurrentLimit(30);
-    flywheelRightLeader.setSmartCurrentLimit(30);
-    flywheelLeftFollower.follow(flywheelRightLeader, true);
+  public Flywheel(FlywheelIO io) {
+    this.io = io;
   }
 
   public double getFlywheelRPM(){
-    return flywheelLeftEncoder.getVelocity();
+    return inputs.velocityRPM;
   }
 
+  /**
+   * Runs open loop
+   * @param targetSpeed Duty cycle
+   */
   public void setTargetSpeed(double targetSpeed){
     this.targetSpeed = targetSpeed;
+    closedLoop = false;
+    targetRPM = 0;
+  }
+
+  /**
+   * Holds a speed in closed loop. The feedforward is recomputed only when the target changes and
+   * sent along with it. A target that drifts within tolerance of the one being timed, like one
+   * re-solved every loop while driving, keeps the spin up and recovery timing going.
+   * @param rpm Signed target speed, negative shoots
+   */
+  public void setTargetRPM(double rpm){
+    if (closedLoop && rpm == targetRPM) {
+      return;
+    }
+    if (rpm == 0) {
+      stop();
+      return;
+    }
+    if (!closedLoop || Math.abs(rpm - timedTargetRPM) >= FlywheelConstants.rpmTolerance) {
+      timedTargetRPM = rpm;
+      spinUpStartTime = Timer.getFPGATimestamp();
+      recoveryStartTime = Double.NaN;
+      wasAtTarget = false;
+    }
+    closedLoop = true;
+    targetRPM = rpm;
+    io.setVelocity(rpm, feedforward.calculate(rpm));
   }
 
   public void stop() {
     setTargetSpeed(0);
   }
+
+  /** @return True once the flywheel is within tolerance of the closed loop target */
+  public boolean isAtTargetRPM(){
+    return closedLoop && Math.abs(getFlywheelRPM() - targetRPM) < FlywheelConstants.rpmTolerance;
+  }
   
   public Command setShootSpeedCommand(){
     return runOnce(() -> setTargetSpeed(-1));
   }
 
+  /**
+   * Spins up for a shot at the given speed
+   * @param rpm Unsigned shot speed
+   */
+  public Command setShootRPMCommand(DoubleSupplier rpm){
+    return runOnce(() -> setTargetRPM(-rpm.getAsDouble()));
+  }
+
+  /**
+   * Keeps following a moving shot speed until interrupted
+   * @param rpm Unsigned shot speed, read every loop
+   */
+  public Command trackRPMCommand(DoubleSupplier rpm){
+    return run(() -> setTargetRPM(-rpm.getAsDouble()));
+  }
+
   public Command runFlywheelCommand(Supplier<Double> speedSupplier) {
     return run(() -> setTargetSpeed(speedSupplier.get()));
   }
@@ -66,6 +127,39 @@ public class Flywheel extends SubsystemBase {
     //     feedforward = new SimpleMotorFeedforward(tunedkS.get(), FlywheelConstants.kV, FlywheelConstants.kA);
     //   }
     //   flywheelRightLeader.setVoltage(flywheelController.calculate(getFlywheelRPM(), targetRPM));
-    flywheelRightLeader.set(targetSpeed);
+    profiler.start(periodicSection);
+    io.updateInputs(inputs);
+    inputsTable.process(inputs);
+    if (closedLoop) {
+      updateSpeedMetrics();
+    } else {
+      io.setDutyCycle(targetSpeed);
+    }
+    rpmEntry.set(getFlywheelRPM());
+    targetEntry.set(targetRPM);
+    maxJitterEntry.set(inputs.fastLoopMaxJitterMs);
+    averageJitterEntry.set(inputs.fastLoopAverageJitterMs);
+    profiler.stop(periodicSection);
+  }
+
+  /**
+   * Publishes how long it took to reach the target after it was set (spin up) and to get back
+   * after dropping out of tolerance, e.g. when a note goes through (recovery).
+   */
+  private void updateSpeedMetrics() {
+    boolean atTarget = isAtTargetRPM();
+    double now = Timer.getFPGATimestamp();
+    if (atTarget && !wasAtTarget) {
+      if (!Double.isNaN(spinUpStartTime)) {
+        spinUpEntry.set((now - spinUpStartTime) * 1000);
+        spinUpStartTime = Double.NaN;
+      } else if (!Double.isNaN(recoveryStartTime)) {
+        recoveryEntry.set((now - recoveryStartTime) * 1000);
+        recoveryStartTime = Double.NaN;
+      }
+    } else if (!atTarget && wasAtTarget) {
+      recoveryStartTime = now;
+    }
+    wasAtTarget = atTarget;
   }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package frc.robot.subsystems.shooter;
+
+import frc.lib.logging.LogTable;
+import frc.lib.logging.LoggableInputs;
+
+/**
+ * Hardware boundary for the {@link Flywheel}. Every method defaults to doing nothing, so replaying
+ * a log uses the interface itself.
+ */
+public interface FlywheelIO {
+  class FlywheelIOInputs implements LoggableInputs {
+    public double velocityRPM;
+    public double appliedVolts;
+    public double currentAmps;
+    /** Only meaningful when the roboRIO runs the velocity loop. Worst since the last update, not ever. */
+    public double fastLoopMaxJitterMs;
+    public double fastLoopAverageJitterMs;
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("VelocityRPM", velocityRPM);
+      table.put("AppliedVolts", appliedVolts);
+      table.put("CurrentAmps", currentAmps);
+      table.put("FastLoopMaxJitterMs", fastLoopMaxJitterMs);
+      table.put("FastLoopAverageJitterMs", fastLoopAverageJitterMs);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      velocityRPM = table.get("VelocityRPM", velocityRPM);
+      appliedVolts = table.get("AppliedVolts", appliedVolts);
+      currentAmps = table.get("CurrentAmps", currentAmps);
+      fastLoopMaxJitterMs = table.get("FastLoopMaxJitterMs", fastLoopMaxJitterMs);
+      fastLoopAverageJitterMs = table.get("FastLoopAverageJitterMs", fastLoopAverageJitterMs);
+    }
+  }
+
+  default void updateInputs(FlywheelIOInputs inputs) {}
+
+  /**
+   * Holds a speed in closed loop. Only called when the target changes.
+   * @param rpm Signed target
+   * @param feedforwardVolts Feedforward for the target
+   */
+  default void setVelocity(double rpm, double feedforwardVolts) {}
+
+  default void setDutyCycle(double output) {}
+}
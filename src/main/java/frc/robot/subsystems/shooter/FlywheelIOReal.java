@@ -0,0 +1,159 @@
+package frc.robot.subsystems.shooter;
+
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.BangBangController;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.lib.utils.CanBudget;
+import frc.robot.Constants.ShooterConstants.FlywheelConstants;
+
+/**
+ * Two NEOs on SPARK MAXes. The velocity loop runs either on the leader or, with
+ * {@link FlywheelConstants#onboardVelocityControl} off, as bang-bang on a 200 Hz roboRIO notifier.
+ */
+public class FlywheelIOReal implements FlywheelIO {
+  protected final CANSparkMax flywheelRightLeader = new CANSparkMax(1, MotorType.kBrushless);
+  private final CANSparkMax flywheelLeftFollower = new CANSparkMax(2, MotorType.kBrushless);
+  protected final RelativeEncoder flywheelLeftEncoder;
+  private final SparkPIDController velocityController;
+  private final BangBangController flywheelController = new BangBangController();
+  /**
+   * Guards the mode and every write to the leader. The fast loop only drives the motor in closed
+   * loop and the main thread only in open loop, and the mode can't change mid write.
+   */
+  private final Object outputLock = new Object();
+  /** Signed, read by the fast loop thread */
+  private double targetRPM;
+  private double feedforwardVolts;
+  private boolean closedLoop = false;
+  /** Last open loop output written, NaN after closed loop so the next one is always sent */
+  private double dutyCycle = Double.NaN;
+  private final Notifier fastLoop = new Notifier(this::runFastLoop);
+  private long lastFastLoopMicros = 0;
+  /** Worst jitter since the main loop last read it, guarded by jitterLock so no sample is lost to the reset */
+  private double maxFastLoopJitterMs = 0;
+  private final Object jitterLock = new Object();
+  private volatile double averageFastLoopJitterMs = 0;
+
+  public FlywheelIOReal() {
+    flywheelRightLeader.setIdleMode(IdleMode.kCoast);
+    flywheelLeftFollower.setIdleMode(IdleMode.kCoast);
+
+    flywheelLeftEncoder = flywheelRightLeader.getEncoder();
+    
+    flywheelLeftFollower.setSmartCurrentLimit(FlywheelConstants.currentLimitAmps);
+    flywheelRightLeader.setSmartCurrentLimit(FlywheelConstants.currentLimitAmps);
+    flywheelLeftFollower.follow(flywheelRightLeader, true);
+
+    velocityController = flywheelRightLeader.getPIDController();
+    velocityController.setP(FlywheelConstants.kP);
+    velocityController.setI(FlywheelConstants.kI);
+    velocityController.setD(FlywheelConstants.kD);
+    velocityController.setFF(0);
+
+    flywheelLeftEncoder.setMeasurementPeriod(FlywheelConstants.encoderMeasurementPeriodMs);
+    flywheelLeftEncoder.setAverageDepth(FlywheelConstants.encoderAverageDepth);
+
+    int[] leaderFrames = FlywheelConstants.leaderFramePeriodsMs.clone();
+    if (!FlywheelConstants.onboardVelocityControl) {
+      // Velocity arrives in status frame 1; it has to come at least as often as the loop runs
+      leaderFrames[1] = (int) (FlywheelConstants.fastLoopPeriodSeconds * 1000);
+    }
+    configureFrames(flywheelRightLeader, leaderFrames, "Flywheel leader");
+    configureFrames(flywheelLeftFollower, FlywheelConstants.followerFramePeriodsMs, "Flywheel follower");
+
+    if (!FlywheelConstants.onboardVelocityControl) {
+      fastLoop.setName("Flywheel fast loop");
+      fastLoop.startPeriodic(FlywheelConstants.fastLoopPeriodSeconds);
+    }
+  }
+
+  /** Sets every status frame period and adds the resulting traffic to the CAN budget */
+  private static void configureFrames(CANSparkMax motor, int[] periodsMs, String name) {
+    PeriodicFrame[] frames = PeriodicFrame.values();
+    double framesPerSecond = 0;
+    for (int i = 0; i < periodsMs.length && i < frames.length; i++) {
+      motor.setPeriodicFramePeriod(frames[i], periodsMs[i]);
+      framesPerSecond += 1000.0 / periodsMs[i];
+    }
+    CanBudget.getInstance().addDevice(name, framesPerSecond);
+  }
+
+  /**
+   * Bang-bang plus most of the feedforward, run off the main loop so recovery after a shot is not
+   * limited to 50 Hz. Only used when the SPARK MAX isn't closing the loop itself.
+   */
+  private void runFastLoop() {
+    long now = RobotController.getFPGATime();
+    if (lastFastLoopMicros != 0) {
+      double jitterMs = Math.abs((now - lastFastLoopMicros) / 1000.0 - FlywheelConstants.fastLoopPeriodSeconds * 1000);
+      synchronized (jitterLock) {
+        maxFastLoopJitterMs = Math.max(maxFastLoopJitterMs, jitterMs);
+      }
+      averageFastLoopJitterMs = averageFastLoopJitterMs * 0.99 + jitterMs * 0.01;
+    }
+    lastFastLoopMicros = now;
+
+    synchronized (outputLock) {
+      double target = targetRPM;
+      if (!closedLoop || target == 0) {
+        return;
+      }
+      // The controller only pushes one way, so work with magnitudes and put the sign back after
+      double sign = Math.signum(target);
+      double battery = RobotController.getBatteryVoltage();
+      double volts = flywheelController.calculate(Math.abs(flywheelLeftEncoder.getVelocity()), Math.abs(target)) * battery;
+      flywheelRightLeader.setVoltage(MathUtil.clamp(sign * volts + FlywheelConstants.bangBangFeedforwardScale * feedforwardVolts, -battery, battery));
+    }
+  }
+
+  @Override
+  public void updateInputs(FlywheelIOInputs inputs) {
+    inputs.velocityRPM = flywheelLeftEncoder.getVelocity();
+    inputs.appliedVolts = flywheelRightLeader.getAppliedOutput() * flywheelRightLeader.getBusVoltage();
+    inputs.currentAmps = flywheelRightLeader.getOutputCurrent();
+    synchronized (jitterLock) {
+      inputs.fastLoopMaxJitterMs = maxFastLoopJitterMs;
+      maxFastLoopJitterMs = 0;
+    }
+    inputs.fastLoopAverageJitterMs = averageFastLoopJitterMs;
+  }
+
+  @Override
+  public void setVelocity(double rpm, double feedforwardVolts) {
+    // More than the bus can supply would saturate the controller and leave nothing to regulate with
+    double battery = RobotController.getBatteryVoltage();
+    feedforwardVolts = MathUtil.clamp(feedforwardVolts, -battery, battery);
+    synchronized (outputLock) {
+      this.feedforwardVolts = feedforwardVolts;
+      targetRPM = rpm;
+      closedLoop = true;
+      dutyCycle = Double.NaN;
+      if (FlywheelConstants.onboardVelocityControl) {
+        velocityController.setReference(rpm, ControlType.kVelocity, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+      }
+    }
+  }
+
+  /** Called every main loop while open loop; only a change is written */
+  @Override
+  public void setDutyCycle(double output) {
+    synchronized (outputLock) {
+      closedLoop = false;
+      targetRPM = 0;
+      if (output != dutyCycle) {
+        dutyCycle = output;
+        flywheelRightLeader.set(output);
+      }
+    }
+  }
+}
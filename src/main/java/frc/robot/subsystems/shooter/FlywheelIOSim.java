@@ -0,0 +1,101 @@
+package frc.robot.subsystems.shooter;
+
+import edu.wpi.first.hal.SimDouble;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import frc.lib.sim.MechanismSim;
+import frc.lib.sim.PhysicsSim;
+import frc.robot.Constants.ShooterConstants.FlywheelConstants;
+
+/**
+ * The real flywheel IO against two NEOs spinning the wheel's inertia. SPARK MAX firmware isn't
+ * simulated, so the model applies what the controller would: the onboard velocity loop, bang-bang
+ * on the roboRIO, or plain duty cycle. Its speed is written to the leader's simulated encoder.
+ */
+public class FlywheelIOSim extends FlywheelIOReal implements MechanismSim {
+  private static final int motorCount = 2;
+  private static final DCMotor motors = DCMotor.getNEO(motorCount);
+  /** Both motors at their limit */
+  private static final double currentLimitAmps = FlywheelConstants.currentLimitAmps * motorCount;
+  private final FlywheelSim flywheelSim = new FlywheelSim(motors, 1, FlywheelConstants.simMoiKgMetersSquared);
+  private final SimDouble velocity;
+  private final SimDouble position;
+  private final SimDouble appliedOutput;
+  private final SimDouble current;
+  private double targetRPM = 0;
+  private double feedforwardVolts = 0;
+  private double dutyCycle = 0;
+  private boolean closedLoop = false;
+  private double supplyCurrentAmps = 0;
+
+  public FlywheelIOSim() {
+    SimDeviceSim sparkSim = new SimDeviceSim("SPARK MAX [" + flywheelRightLeader.getDeviceId() + "]");
+    velocity = sparkSim.getDouble("Velocity");
+    position = sparkSim.getDouble("Position");
+    appliedOutput = sparkSim.getDouble("Applied Output");
+    current = sparkSim.getDouble("Motor Current");
+    PhysicsSim.getInstance().add(this);
+  }
+
+  @Override
+  public void update(double dtSeconds) {
+    double battery = RobotController.getBatteryVoltage();
+    double rpm = flywheelSim.getAngularVelocityRPM();
+    double volts;
+    if (!closedLoop) {
+      volts = dutyCycle * battery;
+    } else if (FlywheelConstants.onboardVelocityControl) {
+      volts = feedforwardVolts + FlywheelConstants.kP * (targetRPM - rpm) * battery;
+    } else {
+      double sign = Math.signum(targetRPM);
+      volts = sign * (Math.abs(rpm) < Math.abs(targetRPM) ? battery : 0) + FlywheelConstants.bangBangFeedforwardScale * feedforwardVolts;
+    }
+    volts = MathUtil.clamp(volts, -battery, battery);
+    // The smart current limit cuts the output until the motors draw no more than the limit, which
+    // keeps the voltage within the limit's worth of resistive drop of the back EMF
+    double backEmfVolts = flywheelSim.getAngularVelocityRadPerSec() / motors.KvRadPerSecPerVolt;
+    double limitVolts = currentLimitAmps * motors.rOhms;
+    volts = MathUtil.clamp(volts, backEmfVolts - limitVolts, backEmfVolts + limitVolts);
+    flywheelSim.setInputVoltage(volts);
+    flywheelSim.update(dtSeconds);
+
+    double statorAmps = MathUtil.clamp(flywheelSim.getCurrentDrawAmps(), -currentLimitAmps, currentLimitAmps);
+    supplyCurrentAmps = MechanismSim.supplyCurrentAmps(statorAmps, volts, battery);
+    rpm = flywheelSim.getAngularVelocityRPM();
+    set(velocity, rpm);
+    set(position, (position != null ? position.get() : 0) + rpm / 60 * dtSeconds);
+    set(appliedOutput, volts / battery);
+    // The leader reports its own motor's current
+    set(current, Math.abs(statorAmps) / motorCount);
+  }
+
+  /** Values are looked up by name, so one REVLib doesn't provide is null */
+  private static void set(SimDouble value, double newValue) {
+    if (value != null) {
+      value.set(newValue);
+    }
+  }
+
+  @Override
+  public void setVelocity(double rpm, double feedforwardVolts) {
+    super.setVelocity(rpm, feedforwardVolts);
+    targetRPM = rpm;
+    this.feedforwardVolts = feedforwardVolts;
+    closedLoop = true;
+  }
+
+  @Override
+  public void setDutyCycle(double output) {
+    super.setDutyCycle(output);
+    dutyCycle = output;
+    closedLoop = false;
+  }
+
+  @Override
+  public double getCurrentDrawAmps() {
+    return supplyCurrentAmps;
+  }
+}
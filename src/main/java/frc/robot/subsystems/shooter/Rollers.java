@@ -6,21 +6,27 @@ package frc.robot.subsystems.shooter;
 
 import java.util.function.Supplier;
 
-import com.playingwithfusion.TimeOfFlight;
-
-import edu.wpi.first.wpilibj.motorcontrol.VictorSP;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.logging.LogTable;
+import frc.lib.utils.LoopProfiler;
+import frc.lib.utils.Telemetry;
+import frc.lib.utils.Telemetry.Priority;
 import frc.robot.Constants.ShooterConstants.RollerConstants;
 
 public class Rollers extends SubsystemBase {
-  /** Creates a new Rollers. */
-  private VictorSP rollers = new VictorSP(RollerConstants.rollerID);
-  private TimeOfFlight tof = new TimeOfFlight(RollerConstants.tofId);
+  private final RollersIO io;
+  private final RollersIO.RollersIOInputs inputs = new RollersIO.RollersIOInputs();
+  private final LogTable inputsTable = new LogTable("Inputs/Rollers/");
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final int periodicSection = profiler.register("Rollers.periodic()");
+  private final Telemetry.BooleanEntry hasNoteEntry = Telemetry.getInstance().addBoolean("Rollers/HasNote", Priority.HIGH);
+  private final Telemetry.DoubleEntry rangeEntry = Telemetry.getInstance().addDouble("Rollers/RangeMm", Priority.LOW);
 
 
-  public Rollers() {
-
+  /** Creates a new Rollers. */
+  public Rollers(RollersIO io) {
+    this.io = io;
   }
 
   public Command setRollersSpeedInCommand(){
@@ -44,11 +50,11 @@ public class Rollers extends SubsystemBase {
   }
 
   public boolean hasNote(){
-    return tof.getRange() < RollerConstants.tofThreshold;
+    return inputs.rangeMm < RollerConstants.tofThreshold;
   }
 
   public void runRollers(double speed){
-    rollers.set(speed);
+    io.setOutput(speed);
   }
 
   public Command runRollersOutCommand(){
@@ -62,5 +68,11 @@ public class Rollers extends SubsystemBase {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    profiler.start(periodicSection);
+    io.updateInputs(inputs);
+    inputsTable.process(inputs);
+    hasNoteEntry.set(hasNote());
+    rangeEntry.set(inputs.rangeMm);
+    profiler.stop(periodicSection);
   }
 }
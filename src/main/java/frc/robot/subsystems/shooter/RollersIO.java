@@ -0,0 +1,30 @@
+package frc.robot.subsystems.shooter;
+
+import frc.lib.logging.LogTable;
+import frc.lib.logging.LoggableInputs;
+
+/**
+ * Hardware boundary for the {@link Rollers}. Every method defaults to doing nothing, so replaying a
+ * log uses the interface itself.
+ */
+public interface RollersIO {
+  class RollersIOInputs implements LoggableInputs {
+    /** Time of flight range, past the threshold when there is no note */
+    public double rangeMm = Double.MAX_VALUE;
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("RangeMm", rangeMm);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      rangeMm = table.get("RangeMm", rangeMm);
+    }
+  }
+
+  default void updateInputs(RollersIOInputs inputs) {}
+
+  /** @param speed Duty cycle, positive intakes */
+  default void setOutput(double speed) {}
+}
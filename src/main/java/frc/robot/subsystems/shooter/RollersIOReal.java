@@ -0,0 +1,21 @@
+package frc.robot.subsystems.shooter;
+
+import com.playingwithfusion.TimeOfFlight;
+
+import edu.wpi.first.wpilibj.motorcontrol.VictorSP;
+import frc.robot.Constants.ShooterConstants.RollerConstants;
+
+public class RollersIOReal implements RollersIO {
+  protected final VictorSP rollers = new VictorSP(RollerConstants.rollerID);
+  private final TimeOfFlight tof = new TimeOfFlight(RollerConstants.tofId);
+
+  @Override
+  public void updateInputs(RollersIOInputs inputs) {
+    inputs.rangeMm = tof.getRange();
+  }
+
+  @Override
+  public void setOutput(double speed) {
+    rollers.set(speed);
+  }
+}
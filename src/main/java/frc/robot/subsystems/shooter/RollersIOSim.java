@@ -0,0 +1,47 @@
+package frc.robot.subsystems.shooter;
+
+import frc.lib.sim.MechanismSim;
+import frc.lib.sim.PhysicsSim;
+import frc.robot.Constants.ShooterConstants.RollerConstants;
+
+/**
+ * The real roller IO against a note moving at the rollers' surface speed. A note is waiting at the
+ * intake side whenever the rollers start intaking without one; it travels in past the time of
+ * flight sensor, and leaves either into the flywheel when fed on past it or back out of the intake
+ * side. Rollers that keep running after a shot don't pick up another note. The time of flight
+ * sensor has no simulation support, so the model supplies its range.
+ */
+public class RollersIOSim extends RollersIOReal implements MechanismSim {
+  private boolean hasNote = false;
+  /** Meters the note is in from the intake side */
+  private double notePosition = 0;
+  private double lastSpeed = 0;
+
+  public RollersIOSim() {
+    PhysicsSim.getInstance().add(this);
+  }
+
+  @Override
+  public void update(double dtSeconds) {
+    double speed = rollers.get() * RollerConstants.simSurfaceSpeedMetersPerSecond;
+    boolean startedIntaking = speed > 0 && lastSpeed <= 0;
+    lastSpeed = speed;
+    if (!hasNote) {
+      if (startedIntaking) {
+        hasNote = true;
+        notePosition = 0;
+      }
+      return;
+    }
+    notePosition += speed * dtSeconds;
+    if (notePosition < 0 || notePosition >= RollerConstants.simFlywheelPositionMeters) {
+      hasNote = false;
+    }
+  }
+
+  @Override
+  public void updateInputs(RollersIOInputs inputs) {
+    boolean seen = hasNote && notePosition >= RollerConstants.simSensorPositionMeters;
+    inputs.rangeMm = seen ? RollerConstants.tofThreshold / 2 : RollerConstants.tofThreshold * 2;
+  }
+}
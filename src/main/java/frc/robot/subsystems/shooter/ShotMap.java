@@ -0,0 +1,78 @@
+package frc.robot.subsystems.shooter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.lib.utils.InterpolatingTable;
+import frc.robot.Constants.ShooterConstants.ShotMapConstants;
+
+/**
+ * Arm angle and flywheel speed to use for a shot, keyed by distance to the center of the speaker
+ * opening. Loaded from the deploy directory so it can be retuned without rebuilding, falling back
+ * to the values in {@link ShotMapConstants} if the file is missing or malformed.
+ */
+public class ShotMap {
+  private InterpolatingTable armRadians;
+  private InterpolatingTable flywheelRPM;
+
+  public ShotMap() {
+    reload();
+  }
+
+  /** Reads the shot map file again, keeping the built-in values if it can't be used */
+  public void reload() {
+    try {
+      load(Files.readAllLines(Path.of(Filesystem.getDeployDirectory().getAbsolutePath(), ShotMapConstants.fileName)));
+    } catch (IOException | RuntimeException e) {
+      DriverStation.reportWarning("Could not load " + ShotMapConstants.fileName + ", using built-in shot map: " + e.getMessage(), false);
+      build(ShotMapConstants.distancesMeters, ShotMapConstants.armDegrees, ShotMapConstants.flywheelRPM);
+    }
+  }
+
+  private void load(List<String> lines) {
+    List<double[]> rows = new ArrayList<>();
+    for (String line : lines) {
+      line = line.strip();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] columns = line.split(",");
+      rows.add(new double[] {
+        Double.parseDouble(columns[0].strip()),
+        Double.parseDouble(columns[1].strip()),
+        Double.parseDouble(columns[2].strip())});
+    }
+    double[] distances = new double[rows.size()];
+    double[] angles = new double[rows.size()];
+    double[] rpms = new double[rows.size()];
+    for (int i = 0; i < rows.size(); i++) {
+      distances[i] = rows.get(i)[0];
+      angles[i] = rows.get(i)[1];
+      rpms[i] = rows.get(i)[2];
+    }
+    build(distances, angles, rpms);
+  }
+
+  private void build(double[] distances, double[] degrees, double[] rpms) {
+    double[] radians = new double[degrees.length];
+    for (int i = 0; i < degrees.length; i++) {
+      radians[i] = Units.degreesToRadians(degrees[i]);
+    }
+    armRadians = new InterpolatingTable(distances, radians, ShotMapConstants.resolutionMeters);
+    flywheelRPM = new InterpolatingTable(distances, rpms, ShotMapConstants.resolutionMeters);
+  }
+
+  public double getArmRadians(double distanceMeters) {
+    return armRadians.get(distanceMeters);
+  }
+
+  public double getFlywheelRPM(double distanceMeters) {
+    return flywheelRPM.get(distanceMeters);
+  }
+}
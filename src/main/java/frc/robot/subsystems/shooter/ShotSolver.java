@@ -0,0 +1,110 @@
+package frc.robot.subsystems.shooter;
+
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.utils.AllianceFlipUtil;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.ShooterConstants.ShotMapConstants;
+
+/**
+ * Solves a shot while the robot is moving. The note keeps the robot's velocity after it leaves, so
+ * we aim at a virtual target shifted against that velocity by the time of flight. Time of flight
+ * depends on distance to the virtual target, so the two are iterated until they agree.
+ *
+ * <p>Results are cached per odometry update, so the aim command and the shot sequence can both
+ * ask in the same loop for free.
+ */
+public class ShotSolver {
+  private static final Translation2d blueSpeaker = FieldConstants.SpeakerK.kBlueCenterOpening.toTranslation2d();
+  private static final Translation2d redSpeaker = FieldConstants.SpeakerK.kRedCenterOpening.toTranslation2d();
+
+  private final ShotMap shotMap;
+  private final Supplier<DrivetrainSnapshot> drivetrain;
+
+  private long solvedVersion = -1;
+  private boolean solvedRed;
+  private double targetX;
+  private double targetY;
+  private double distance;
+  private double headingRadians;
+
+  /**
+   * @param shotMap Arm angle and flywheel speed by distance
+   * @param drivetrain Latest drivetrain state
+   */
+  public ShotSolver(ShotMap shotMap, Supplier<DrivetrainSnapshot> drivetrain) {
+    this.shotMap = shotMap;
+    this.drivetrain = drivetrain;
+  }
+
+  private void update() {
+    DrivetrainSnapshot snapshot = drivetrain.get();
+    boolean red = AllianceFlipUtil.shouldFlip();
+    if (snapshot.version == solvedVersion && red == solvedRed) {
+      return;
+    }
+    solvedVersion = snapshot.version;
+    solvedRed = red;
+
+    Translation2d speaker = red ? redSpeaker : blueSpeaker;
+    double robotX = snapshot.pose.getX();
+    double robotY = snapshot.pose.getY();
+    // Snapshot speeds are robot relative
+    ChassisSpeeds speeds = snapshot.chassisSpeeds;
+    double cos = snapshot.pose.getRotation().getCos();
+    double sin = snapshot.pose.getRotation().getSin();
+    double vx = speeds.vxMetersPerSecond * cos - speeds.vyMetersPerSecond * sin;
+    double vy = speeds.vxMetersPerSecond * sin + speeds.vyMetersPerSecond * cos;
+
+    targetX = speaker.getX();
+    targetY = speaker.getY();
+    distance = Math.hypot(targetX - robotX, targetY - robotY);
+    for (int i = 0; i < ShotMapConstants.solverIterations; i++) {
+      double timeOfFlight = distance / ShotMapConstants.noteVelocityMetersPerSecond;
+      double nextX = speaker.getX() - vx * timeOfFlight;
+      double nextY = speaker.getY() - vy * timeOfFlight;
+      double nextDistance = Math.hypot(nextX - robotX, nextY - robotY);
+      targetX = nextX;
+      targetY = nextY;
+      if (Math.abs(nextDistance - distance) < ShotMapConstants.solverToleranceMeters) {
+        distance = nextDistance;
+        break;
+      }
+      distance = nextDistance;
+    }
+    headingRadians = Math.atan2(targetY - robotY, targetX - robotX);
+  }
+
+  /** @return Field relative heading to face the virtual target */
+  public double getHeadingRadians() {
+    update();
+    return headingRadians;
+  }
+
+  /** @return Distance to the virtual target, which is what the shot map should be read at */
+  public double getDistance() {
+    update();
+    return distance;
+  }
+
+  public double getTargetX() {
+    update();
+    return targetX;
+  }
+
+  public double getTargetY() {
+    update();
+    return targetY;
+  }
+
+  public double getArmRadians() {
+    return shotMap.getArmRadians(getDistance());
+  }
+
+  public double getFlywheelRPM() {
+    return shotMap.getFlywheelRPM(getDistance());
+  }
+}
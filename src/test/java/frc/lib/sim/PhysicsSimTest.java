@@ -0,0 +1,158 @@
+package frc.lib.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+class PhysicsSimTest {
+    private static final double rateHz = 200;
+    private static final double stepSeconds = 1 / rateHz;
+    private static final double loopSeconds = 0.02;
+    private static final double epsilon = 1e-9;
+
+    /** Records every step it is given */
+    private static class Recorder implements MechanismSim {
+        final List<Double> steps = new ArrayList<>();
+
+        @Override
+        public void update(double dtSeconds) {
+            steps.add(dtSeconds);
+        }
+    }
+
+    /**
+     * Closes in on a speed with a time constant shorter than a loop, like the flywheel spinning up for
+     * a shot. Stepped a whole loop at once it overshoots further every loop and never gets there.
+     */
+    private static class SpinUp implements MechanismSim {
+        static final double timeConstantSeconds = 0.008;
+        double speed = 0;
+        double time = 0;
+        double reachedAt = Double.NaN;
+
+        @Override
+        public void update(double dtSeconds) {
+            speed += (1 - speed) * dtSeconds / timeConstantSeconds;
+            time += dtSeconds;
+            if (Double.isNaN(reachedAt) && Math.abs(1 - speed) < 0.01) {
+                reachedAt = time;
+            }
+        }
+    }
+
+    /** A note pushed past a sensor at a steady speed, like the rollers intaking or feeding */
+    private static class NoteTravel implements MechanismSim {
+        static final double speedMetersPerSecond = 2;
+        static final double sensorMeters = 0.141;
+        double position = 0;
+        double time = 0;
+        double reachedAt = Double.NaN;
+
+        @Override
+        public void update(double dtSeconds) {
+            position += speedMetersPerSecond * dtSeconds;
+            time += dtSeconds;
+            if (Double.isNaN(reachedAt) && position >= sensorMeters) {
+                reachedAt = time;
+            }
+        }
+    }
+
+    @BeforeAll
+    static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void pauseTiming() {
+        SimHooks.pauseTiming();
+    }
+
+    @AfterEach
+    void resumeTiming() {
+        SimHooks.resumeTiming();
+    }
+
+    private static PhysicsSim createSim(MechanismSim mechanism) {
+        PhysicsSim sim = new PhysicsSim(12, 0.02, rateHz);
+        sim.add(mechanism);
+        sim.update();
+        return sim;
+    }
+
+    /**
+     * @param bursts True steps timing a whole loop at a time and then updates four times, so the
+     *        first update sees the whole loop and the rest see none. False updates every step.
+     */
+    private static void runLoops(PhysicsSim sim, boolean bursts, int loops) {
+        int updatesPerLoop = (int) Math.round(loopSeconds / stepSeconds);
+        for (int loop = 0; loop < loops; loop++) {
+            if (bursts) {
+                SimHooks.stepTiming(loopSeconds);
+            }
+            for (int update = 0; update < updatesPerLoop; update++) {
+                if (!bursts) {
+                    SimHooks.stepTiming(stepSeconds);
+                }
+                sim.update();
+            }
+        }
+    }
+
+    @Test
+    void stepsAtTheFixedRateWhenTimeArrivesInBursts() {
+        Recorder recorder = new Recorder();
+        runLoops(createSim(recorder), true, 10);
+        assertEquals(40, recorder.steps.size());
+        for (double step : recorder.steps) {
+            assertEquals(stepSeconds, step, epsilon);
+        }
+    }
+
+    @Test
+    void carriesLeftoverTimeToTheNextUpdate() {
+        Recorder recorder = new Recorder();
+        PhysicsSim sim = createSim(recorder);
+        SimHooks.stepTiming(0.003);
+        sim.update();
+        assertTrue(recorder.steps.isEmpty());
+        SimHooks.stepTiming(0.003);
+        sim.update();
+        assertEquals(1, recorder.steps.size());
+        SimHooks.stepTiming(0.004);
+        sim.update();
+        assertEquals(2, recorder.steps.size());
+    }
+
+    @Test
+    void spinUpTimeDoesNotDependOnHowUpdatesAreSpread() {
+        SpinUp steady = new SpinUp();
+        runLoops(createSim(steady), false, 10);
+        SpinUp bursts = new SpinUp();
+        runLoops(createSim(bursts), true, 10);
+        assertFalse(Double.isNaN(steady.reachedAt));
+        assertEquals(steady.reachedAt, bursts.reachedAt, epsilon);
+    }
+
+    @Test
+    void noteTravelTimeDoesNotDependOnHowUpdatesAreSpread() {
+        NoteTravel steady = new NoteTravel();
+        runLoops(createSim(steady), false, 10);
+        NoteTravel bursts = new NoteTravel();
+        runLoops(createSim(bursts), true, 10);
+        // 0.141 m at 2 m/s is crossed on the 15th 5 ms step, not at the end of the 4th 20 ms one
+        assertEquals(0.075, steady.reachedAt, epsilon);
+        assertEquals(steady.reachedAt, bursts.reachedAt, epsilon);
+    }
+}
@@ -0,0 +1,89 @@
+package frc.lib.swerve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+class CTREModuleStateTest {
+    private static final int[] turns = {0, 1, -1, 10, -10, 1000, -100000};
+    private static final double epsilon = 1e-6;
+
+    /** Runs both versions and checks the closed form gives exactly what the scope search does */
+    private static void assertMatches(double speed, double desiredDegrees, double currentDegrees) {
+        SwerveModuleState desired = new SwerveModuleState(speed, Rotation2d.fromDegrees(desiredDegrees));
+        Rotation2d current = Rotation2d.fromDegrees(currentDegrees);
+        SwerveModuleState expected = CTREModuleState.optimize(desired, current);
+        SwerveModuleState actual = new SwerveModuleState();
+        CTREModuleState.optimize(desired, current, actual, false);
+        String message = "desired " + desiredDegrees + " current " + currentDegrees;
+        assertEquals(expected.speedMetersPerSecond, actual.speedMetersPerSecond, epsilon, message);
+        assertEquals(expected.angle.getDegrees(), actual.angle.getDegrees(), epsilon, message);
+    }
+
+    /**
+     * Exactly a quarter turn away either way is as short, and which one each version picks comes
+     * down to rounding, so only check that both drive the wheel the same way without turning it
+     * more than a quarter turn.
+     */
+    private static void assertEquivalent(double speed, double desiredDegrees, double currentDegrees) {
+        SwerveModuleState desired = new SwerveModuleState(speed, Rotation2d.fromDegrees(desiredDegrees));
+        Rotation2d current = Rotation2d.fromDegrees(currentDegrees);
+        SwerveModuleState expected = CTREModuleState.optimize(desired, current);
+        SwerveModuleState actual = new SwerveModuleState();
+        CTREModuleState.optimize(desired, current, actual, false);
+        String message = "desired " + desiredDegrees + " current " + currentDegrees;
+        assertEquals(expected.speedMetersPerSecond * expected.angle.getCos(), actual.speedMetersPerSecond * actual.angle.getCos(), epsilon, message);
+        assertEquals(expected.speedMetersPerSecond * expected.angle.getSin(), actual.speedMetersPerSecond * actual.angle.getSin(), epsilon, message);
+        assertTrue(Math.abs(expected.angle.getDegrees() - currentDegrees) <= 90 + epsilon, message);
+        assertTrue(Math.abs(actual.angle.getDegrees() - currentDegrees) <= 90 + epsilon, message);
+    }
+
+    @Test
+    void matchesOriginalAcrossAccumulatedTurns() {
+        Random random = new Random(2024);
+        for (int turn : turns) {
+            for (int sample = 0; sample < 1000; sample++) {
+                assertMatches(random.nextDouble() * 4, random.nextDouble() * 360 - 180,
+                    turn * 360.0 + random.nextDouble() * 360 - 180);
+            }
+        }
+    }
+
+    @Test
+    void matchesOriginalNextToQuarterAndHalfTurns() {
+        for (int turn : turns) {
+            for (double current = -180; current <= 180; current += 90) {
+                for (double error : new double[] {-180, -90, 90, 180}) {
+                    for (double offset : new double[] {-1e-4, 1e-4}) {
+                        assertMatches(2, current + error + offset, turn * 360.0 + current);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void agreesWithOriginalOnQuarterAndHalfTurns() {
+        for (int turn : turns) {
+            for (double current = -180; current <= 180; current += 90) {
+                for (double error = -180; error <= 180; error += 90) {
+                    assertEquivalent(2, current + error, turn * 360.0 + current);
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesIntoTheDesiredState() {
+        SwerveModuleState state = new SwerveModuleState(1, Rotation2d.fromDegrees(170));
+        CTREModuleState.optimize(state, Rotation2d.fromDegrees(720), state, false);
+        assertEquals(-1, state.speedMetersPerSecond, epsilon);
+        assertEquals(710, state.angle.getDegrees(), epsilon);
+    }
+}
@@ -0,0 +1,95 @@
+package frc.lib.swerve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+class SwerveSetpointGeneratorTest {
+    private static final double dt = 0.02;
+    private static final double maxVelocity = 4.5;
+    private static final double maxAcceleration = 5;
+    private static final double maxDeceleration = 10;
+    private static final double maxSteerVelocity = 20;
+    private static final double epsilon = 1e-9;
+
+    private final SwerveSetpointGenerator generator = new SwerveSetpointGenerator(new Translation2d[] {
+        new Translation2d(0.3, 0.3), new Translation2d(0.3, -0.3), new Translation2d(-0.3, 0.3), new Translation2d(-0.3, -0.3)
+    }, maxVelocity, maxAcceleration, maxDeceleration, maxSteerVelocity);
+
+    /** Drives straight ahead until every module is at the given speed */
+    private void driveForward(double speed) {
+        for (int loop = 0; loop < 100; loop++) {
+            generator.generate(speed, 0, 0, dt);
+        }
+        assertModules(speed, 0);
+    }
+
+    private void assertModules(double speed, double heading) {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(speed, generator.getModuleSpeeds()[i], epsilon, "speed of module " + i);
+            assertEquals(heading, generator.getModuleHeadings()[i], epsilon, "heading of module " + i);
+        }
+    }
+
+    @Test
+    void clampsAcceleration() {
+        generator.generate(4, 0, 0, dt);
+        assertModules(maxAcceleration * dt, 0);
+        assertEquals(maxAcceleration * dt, generator.getSetpoint().vxMetersPerSecond, epsilon);
+    }
+
+    @Test
+    void clampsDecelerationSeparately() {
+        driveForward(2);
+        generator.generate(0, 0, 0, dt);
+        assertModules(2 - maxDeceleration * dt, 0);
+    }
+
+    @Test
+    void desaturatesBeforeClamping() {
+        for (int loop = 0; loop < 200; loop++) {
+            generator.generate(10, 0, 0, dt);
+        }
+        assertModules(maxVelocity, 0);
+    }
+
+    @Test
+    void reversesWheelsInsteadOfTurning() {
+        driveForward(1);
+        for (int loop = 0; loop < 100; loop++) {
+            generator.generate(-1, 0, 0, dt);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(0, generator.getModuleHeadings()[i], epsilon, "heading of module " + i);
+            }
+        }
+        assertModules(-1, 0);
+    }
+
+    @Test
+    void turnsInPlaceFromAStop() {
+        double maxTurn = maxSteerVelocity * dt;
+        // A quarter turn takes four loops at 0.4 radians each, standing still for the first three
+        for (int loop = 1; loop <= 3; loop++) {
+            generator.generate(0, 1, 0, dt);
+            assertModules(0, loop * maxTurn);
+            assertEquals(0, generator.getSetpoint().vyMetersPerSecond, epsilon);
+        }
+        generator.generate(0, 1, 0, dt);
+        assertModules(maxAcceleration * dt, Math.PI / 2);
+    }
+
+    @Test
+    void slowsDownToTurnAtSpeed() {
+        driveForward(1);
+        generator.generate(0, 1, 0, dt);
+        for (int i = 0; i < 4; i++) {
+            double heading = generator.getModuleHeadings()[i];
+            double speed = generator.getModuleSpeeds()[i];
+            assertTrue(Math.abs(heading) <= maxSteerVelocity * dt + epsilon, "module " + i + " turned " + heading);
+            assertTrue(speed < 1, "module " + i + " kept speed " + speed);
+        }
+    }
+}
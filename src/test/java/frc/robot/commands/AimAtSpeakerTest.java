@@ -0,0 +1,83 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.swerve.SwerveIO;
+import frc.robot.io.DriverControls;
+import frc.robot.subsystems.Drive;
+import frc.robot.subsystems.shooter.ShotMap;
+import frc.robot.subsystems.shooter.ShotSolver;
+
+class AimAtSpeakerTest {
+  private static final int loops = 10_000;
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    DriverStationSim.setAllianceStationId(AllianceStationID.Red1);
+    // A missing stick axis builds a warning string on every read
+    DriverStationSim.setJoystickAxisCount(0, 6);
+    XboxControllerSim controller = new XboxControllerSim(0);
+    controller.setLeftY(-0.5);
+    controller.setLeftX(0.3);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+  }
+
+  @Test
+  void executeDoesNotAllocate() {
+    Drive drive = new Drive(new SwerveIO() {});
+    // A new snapshot every loop, as after each odometry update, so the solver never just returns its cache
+    SwerveModuleState[] states = {new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
+    DrivetrainSnapshot[] snapshots = new DrivetrainSnapshot[16];
+    for (int i = 0; i < snapshots.length; i++) {
+      snapshots[i] = new DrivetrainSnapshot(i, 0, new Pose2d(2 + i * 0.2, 4 + i * 0.1, Rotation2d.fromDegrees(i * 10)),
+        states, new ChassisSpeeds(1.5, 0.5 - i * 0.05, 0.2));
+    }
+    int[] next = {0};
+    ShotSolver solver = new ShotSolver(new ShotMap(), () -> snapshots[next[0]]);
+
+    for (boolean rotateAroundPose : new boolean[] {false, true}) {
+      AimAtSpeaker command = new AimAtSpeaker(drive, new DriverControls(0), rotateAroundPose, solver);
+      Runnable loop = () -> {
+        next[0] = (next[0] + 1) % snapshots.length;
+        command.execute();
+      };
+      assertEquals(0, allocatedBytes(loop), "rotateAroundPose " + rotateAroundPose);
+    }
+  }
+
+  /** Runs the loop until the JIT has settled, then counts what more runs allocate on this thread */
+  private static long allocatedBytes(Runnable loop) {
+    for (int i = 0; i < loops; i++) {
+      loop.run();
+    }
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long start = threads.getThreadAllocatedBytes(thread);
+    long overhead = threads.getThreadAllocatedBytes(thread) - start;
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < loops; i++) {
+      loop.run();
+    }
+    return threads.getThreadAllocatedBytes(thread) - before - overhead;
+  }
+}
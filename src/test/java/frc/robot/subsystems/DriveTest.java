@@ -0,0 +1,131 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule.DriveRequestType;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModuleConstants;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest.SwerveControlRequestParameters;
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.swerve.SwerveIO;
+
+/** Teleop drive methods, followed through the reused request to the modules */
+class DriveTest {
+  private static final int loops = 10_000;
+  private static final double loopSeconds = 0.02;
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  /** Keeps what it was last told instead of commanding its motors, whose control requests allocate */
+  private static class RecordingModule extends SwerveModule {
+    double speedMetersPerSecond;
+    double angleRadians;
+
+    RecordingModule(int index) {
+      super(new SwerveModuleConstants().withDriveMotorId(40 + 2 * index).withSteerMotorId(41 + 2 * index).withCANcoderId(40 + index), "");
+    }
+
+    @Override
+    public void apply(SwerveModuleState state, DriveRequestType driveRequestType) {
+      speedMetersPerSecond = state.speedMetersPerSecond;
+      angleRadians = state.angle.getRadians();
+    }
+  }
+
+  /** Applies each request on the calling thread, as the odometry thread would */
+  private static class ApplyingSwerveIO implements SwerveIO {
+    private final SwerveControlRequestParameters parameters = new SwerveControlRequestParameters();
+    private final RecordingModule[] modules = new RecordingModule[4];
+    private final Pose2d pose;
+
+    ApplyingSwerveIO(Pose2d pose) {
+      this.pose = pose;
+      for (int i = 0; i < modules.length; i++) {
+        modules[i] = new RecordingModule(i);
+      }
+    }
+
+    @Override
+    public void updateInputs(SwerveIOInputs inputs) {
+      inputs.snapshot.pose = pose;
+    }
+
+    @Override
+    public void setControl(SwerveRequest request) {
+      request.apply(parameters, modules);
+    }
+
+    void assertDriving() {
+      for (RecordingModule module : modules) {
+        assertTrue(Math.abs(module.speedMetersPerSecond) > 0.1, "module never driven");
+      }
+    }
+  }
+
+  @Test
+  void driveFieldCentricDoesNotAllocate() {
+    // Turned so the field to robot rotation isn't trivial
+    ApplyingSwerveIO io = new ApplyingSwerveIO(new Pose2d(3, 4, Rotation2d.fromDegrees(130)));
+    Drive drive = new Drive(io);
+    ChassisSpeeds speeds = new ChassisSpeeds(1.5, -0.8, 1.2);
+    assertEquals(0, allocatedBytes(() -> drive.driveFieldCentric(speeds)));
+    io.assertDriving();
+  }
+
+  @Test
+  void driveRobotCentricDoesNotAllocate() {
+    ApplyingSwerveIO io = new ApplyingSwerveIO(new Pose2d());
+    Drive drive = new Drive(io);
+    ChassisSpeeds speeds = new ChassisSpeeds(-1.0, 1.3, -0.9);
+    assertEquals(0, allocatedBytes(() -> drive.driveRobotCentric(speeds)));
+    io.assertDriving();
+  }
+
+  /**
+   * Steps the clock a loop at a time, so the setpoint settles on the request and the modules'
+   * headings stop changing; {@link frc.lib.swerve.ApplyModuleStates} only builds a Rotation2d when
+   * one does. Runs until the JIT has settled, then counts what more runs allocate on this thread.
+   */
+  private static long allocatedBytes(Runnable drive) {
+    Runnable loop = () -> {
+      SimHooks.stepTiming(loopSeconds);
+      drive.run();
+    };
+    for (int i = 0; i < loops; i++) {
+      loop.run();
+    }
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long start = threads.getThreadAllocatedBytes(thread);
+    long overhead = threads.getThreadAllocatedBytes(thread) - start;
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < loops; i++) {
+      loop.run();
+    }
+    return threads.getThreadAllocatedBytes(thread) - before - overhead;
+  }
+}
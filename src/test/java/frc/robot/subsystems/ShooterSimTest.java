@@ -0,0 +1,123 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix6.unmanaged.Unmanaged;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.sim.PhysicsSim;
+import frc.lib.swerve.DrivetrainSnapshot;
+import frc.lib.utils.MultiRateScheduler;
+import frc.lib.utils.SignalRegistry;
+import frc.lib.utils.Telemetry;
+import frc.robot.Constants.ShooterConstants;
+import frc.robot.subsystems.shooter.ArmIOSim;
+import frc.robot.subsystems.shooter.FlywheelIOSim;
+import frc.robot.subsystems.shooter.RollersIOSim;
+
+/** Intakes and shoots a note against the arm, flywheel and roller models, moving partway through */
+class ShooterSimTest {
+  private static final double loopSeconds = 0.02;
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+    SimHooks.pauseTiming();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  /**
+   * Runs one loop in the order robotPeriodic does, with the physics catching up first as it would
+   * between loops. The simulated TalonFX runs Motion Magic on the wall clock, so each loop also
+   * waits a loop period for it to keep pace.
+   */
+  private static void runLoop() throws InterruptedException {
+    Unmanaged.feedEnable(100);
+    SimHooks.stepTiming(loopSeconds);
+    PhysicsSim.getInstance().update();
+    SignalRegistry.getInstance().refreshAll();
+    CommandScheduler.getInstance().run();
+    MultiRateScheduler.getInstance().run();
+    Thread.sleep((long) (loopSeconds * 1000));
+  }
+
+  /** @return True if the condition came true within the time limit */
+  private static boolean runUntil(BooleanSupplier condition, double timeoutSeconds) throws InterruptedException {
+    for (int loop = 0; loop < timeoutSeconds / loopSeconds; loop++) {
+      runLoop();
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  void shotFinishesAndIsTimed() throws InterruptedException {
+    SwerveModuleState[] states = {new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
+    // Standing still a couple of meters straight out from the blue speaker
+    DrivetrainSnapshot[] snapshot = {new DrivetrainSnapshot(0, 0, new Pose2d(2.5, 5.55, Rotation2d.fromDegrees(180)),
+      states, new ChassisSpeeds())};
+    Shooter shooter = new Shooter(new ArmIOSim(), new FlywheelIOSim(), new RollersIOSim(), () -> snapshot[0]);
+    Telemetry.getInstance().setLowPriorityPerFlush(Integer.MAX_VALUE);
+    DoubleSubscriber shotTime = NetworkTableInstance.getDefault().getTable("").getDoubleTopic("Shooter/ShotTimeMs").subscribe(0);
+    DoubleSubscriber targetRPM = NetworkTableInstance.getDefault().getTable("").getDoubleTopic("Flywheel/TargetRPM").subscribe(0);
+    DoubleSubscriber failedShots = NetworkTableInstance.getDefault().getTable("").getDoubleTopic("Shooter/FailedShots").subscribe(0);
+
+    Command intake = shooter.rollers.autoIntake();
+    CommandScheduler.getInstance().schedule(intake);
+    assertTrue(runUntil(() -> !intake.isScheduled(), 1), "note never reached the sensor");
+    assertTrue(shooter.rollers.hasNote());
+
+    Command shot = shooter.shootCommand();
+    CommandScheduler.getInstance().schedule(shot);
+    runLoop();
+    Telemetry.getInstance().flush();
+    double nearRPM = Math.abs(targetRPM.get());
+    // Backing up half a meter mid shot has to raise the speed it spins up to
+    snapshot[0] = new DrivetrainSnapshot(1, loopSeconds, new Pose2d(3.0, 5.55, Rotation2d.fromDegrees(180)),
+      states, new ChassisSpeeds());
+    // One loop to start aiming, one to track
+    runLoop();
+    runLoop();
+    Telemetry.getInstance().flush();
+    assertTrue(Math.abs(targetRPM.get()) > nearRPM, "flywheel target not re-solved after moving");
+
+    assertTrue(runUntil(() -> !shot.isScheduled(), ShooterConstants.readyTimeoutSeconds + ShooterConstants.feedTimeoutSeconds + 1),
+      "shot never finished");
+    Telemetry.getInstance().flush();
+
+    assertEquals(0, failedShots.get());
+    assertFalse(shooter.rollers.hasNote());
+    assertTrue(shotTime.get() > 0, "no shot time published");
+  }
+}